@@ -0,0 +1,50 @@
+package com.stationly.backend.client;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Sliding window of the most recent latency samples. Recording is a single
+ * atomic increment and store; percentiles sort a copy of the window and are
+ * meant for low-frequency reads (hedge decisions, metrics).
+ */
+final class LatencyRecorder {
+
+    private final AtomicLongArray samples;
+    private final AtomicLong count = new AtomicLong();
+
+    LatencyRecorder(int windowSize) {
+        this.samples = new AtomicLongArray(windowSize);
+    }
+
+    void record(long nanos) {
+        long index = count.getAndIncrement();
+        samples.set((int) (index % samples.length()), nanos);
+    }
+
+    /**
+     * @return Number of samples currently in the window
+     */
+    int size() {
+        return (int) Math.min(count.get(), samples.length());
+    }
+
+    /**
+     * @param quantile Between 0 and 1, e.g. 0.99
+     * @return The latency at the given quantile in nanoseconds, or 0 with no samples
+     */
+    long percentile(double quantile) {
+        int size = size();
+        if (size == 0) {
+            return 0;
+        }
+        long[] copy = new long[size];
+        for (int i = 0; i < size; i++) {
+            copy[i] = samples.get(i);
+        }
+        Arrays.sort(copy);
+        int rank = (int) Math.ceil(quantile * size) - 1;
+        return copy[Math.max(0, Math.min(size - 1, rank))];
+    }
+}
@@ -0,0 +1,52 @@
+package com.stationly.backend.client;
+
+import com.stationly.backend.model.CoalescingStats;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Per-key in-flight deduplication: concurrent subscribers for the same key
+ * share one execution of the underlying call and receive the same result (or
+ * error). The key is released as soon as the call terminates, so results are
+ * never cached beyond the lifetime of the request.
+ */
+class SingleFlight {
+
+    private final Map<String, Mono<?>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    <T> Mono<T> execute(String key, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            requests.increment();
+            AtomicReference<Mono<T>> created = new AtomicReference<>();
+            Mono<T> flight = (Mono<T>) inFlight.computeIfAbsent(key, k -> {
+                // Released before subscribers see the result, so none of them
+                // can still find the finished call under the key
+                Mono<T> mono = call.get()
+                        .doOnTerminate(() -> inFlight.remove(k, created.get()))
+                        .cache();
+                created.set(mono);
+                return mono;
+            });
+            if (flight != created.get()) {
+                shared.increment();
+            }
+            return flight;
+        });
+    }
+
+    CoalescingStats getStats() {
+        return CoalescingStats.builder()
+                .requests(requests.sum())
+                .shared(shared.sum())
+                .inFlight(inFlight.size())
+                .build();
+    }
+}
@@ -1,17 +1,89 @@
 package com.stationly.backend.client;
 
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
 import com.stationly.backend.model.ArrivalPrediction;
+import com.stationly.backend.model.CoalescingStats;
+import com.stationly.backend.model.TflLine;
+import com.stationly.backend.model.TflLineRoute;
+import com.stationly.backend.model.TflRouteSequence;
+import com.stationly.backend.model.TflStopPoint;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.util.UriBuilder;
+import org.springframework.web.util.UriBuilderFactory;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
 
+/**
+ * Client for the TfL Unified API.
+ * <p>
+ * Every endpoint has a reactive variant ({@code fetch*}) returning a Mono/Flux
+ * with the rate-limit permit and timeout composed in, so fan-out can run on the
+ * Netty event loop. The blocking {@code get*} methods are thin adapters over
+ * them for existing callers.
+ * <p>
+ * Each request runs under {@link TflResilience} for its endpoint family
+ * (retries, circuit breaker, hedged arrivals); the family also decides the
+ * rate-limit priority.
+ * <p>
+ * Static endpoints (lines, stop points, routes) go through {@link TflHttpCache}:
+ * fresh entries cost no request or permit, stale ones are revalidated with a
+ * conditional GET.
+ * <p>
+ * Concurrent identical Mono requests (same URI) share one upstream call, e.g. a
+ * Firestore miss in {@code LineService} racing the station sync for the same
+ * mode. Arrival streams are not coalesced: a late subscriber would miss the
+ * elements already emitted.
+ * <p>
+ * Lines, stop points and routes decode straight into minimal typed records
+ * through {@link TflJson}; fields the application does not read are skipped by
+ * the parser rather than materialised as maps.
+ * <p>
+ * The base URL is configurable ({@code tfl.api.base-url}) so the client can be
+ * pointed at the offline replay server; {@link TflResponseRecorder} captures
+ * the responses that server plays back.
+ */
 @Component
 public class TflApiClient {
 
+        private static final ParameterizedTypeReference<List<Map<String, Object>>> LIST_OF_MAPS = new ParameterizedTypeReference<>() {
+        };
+        private static final ParameterizedTypeReference<List<TflLine>> LIST_OF_LINES = new ParameterizedTypeReference<>() {
+        };
+        private static final ParameterizedTypeReference<List<TflStopPoint>> LIST_OF_STOP_POINTS = new ParameterizedTypeReference<>() {
+        };
+        private static final ParameterizedTypeReference<TflLineRoute> LINE_ROUTE = new ParameterizedTypeReference<>() {
+        };
+        private static final ParameterizedTypeReference<TflRouteSequence> ROUTE_SEQUENCE = new ParameterizedTypeReference<>() {
+        };
+
+        private static final String DEFAULT_BASE_URL = "https://api.tfl.gov.uk";
+
         private final WebClient webClient;
-        private final TflRateLimiter rateLimiter;
+        private final UriBuilderFactory uriBuilderFactory;
+        private final TflHttpCache httpCache;
+        private final TflResilience resilience;
+        private final boolean recording;
+        private final SingleFlight singleFlight = new SingleFlight();
 
         @Value("${tfl.app.key}")
         private String appKey;
@@ -22,129 +94,249 @@ public class TflApiClient {
         @Value("${tfl.api.timeout}")
         private int apiTimeout;
 
-        public TflApiClient(WebClient.Builder webClientBuilder, TflRateLimiter rateLimiter) {
-                this.rateLimiter = rateLimiter;
-                this.webClient = webClientBuilder
-                                .baseUrl("https://api.tfl.gov.uk")
-                                .codecs(configurer -> configurer
-                                                .defaultCodecs()
-                                                .maxInMemorySize(2 * 1024 * 1024)) // 2MB
+        public TflApiClient(@Qualifier("tflWebClientBuilder") WebClient.Builder webClientBuilder,
+                        TflHttpCache httpCache,
+                        TflResilience resilience, TflResponseRecorder recorder,
+                        @Value("${tfl.api.base-url:" + DEFAULT_BASE_URL + "}") String baseUrl) {
+                this.httpCache = httpCache;
+                this.resilience = resilience;
+                this.recording = recorder.isEnabled();
+                this.uriBuilderFactory = new DefaultUriBuilderFactory(baseUrl);
+                this.webClient = webClientBuilder.clone()
+                                .baseUrl(baseUrl)
+                                .filter(recorder)
+                                .codecs(configurer -> {
+                                        configurer.defaultCodecs()
+                                                        .jackson2JsonDecoder(new Jackson2JsonDecoder(TflJson.mapper()));
+                                        configurer.defaultCodecs()
+                                                        .maxInMemorySize(2 * 1024 * 1024); // 2MB, per element when streaming
+                                })
                                 .build();
         }
 
-        public List<ArrivalPrediction> getArrivals(String stationId) {
-                return webClient.get()
-                                .uri(uriBuilder -> uriBuilder
+        /**
+         * @return Counters for coalesced (shared) requests
+         */
+        public CoalescingStats getCoalescingStats() {
+                return singleFlight.getStats();
+        }
+
+        public Flux<ArrivalPrediction> fetchArrivals(String stationId) {
+                return getFlux(TflResilience.Endpoint.ARRIVALS,
+                                uriBuilder -> uriBuilder
                                                 .path("/StopPoint/{stationId}/Arrivals")
                                                 .queryParam("app_key", appKey)
-                                                .build(stationId))
-                                .retrieve()
-                                .bodyToFlux(ArrivalPrediction.class)
-                                .timeout(java.time.Duration.ofSeconds(apiTimeout))
-                                .collectList()
-                                .block();
+                                                .build(stationId),
+                                ArrivalPrediction.class);
         }
 
-        public List<ArrivalPrediction> getArrivalsByMode(String mode) {
-                return webClient.get()
-                                .uri(uriBuilder -> uriBuilder
+        /**
+         * Arrivals for a whole mode. The JSON array is tokenized incrementally and
+         * each prediction is emitted as soon as it is decoded.
+         */
+        public Flux<ArrivalPrediction> fetchArrivalsByMode(String mode) {
+                return getFlux(TflResilience.Endpoint.ARRIVALS,
+                                uriBuilder -> uriBuilder
                                                 .path("/Mode/{mode}/Arrivals")
                                                 .queryParam("app_key", appKey)
                                                 .queryParam("count", arrivalPredictionCount)
-                                                .build(mode))
-                                .retrieve()
-                                .bodyToFlux(ArrivalPrediction.class)
-                                .timeout(java.time.Duration.ofSeconds(apiTimeout))
-                                .collectList()
-                                .block();
+                                                .build(mode),
+                                ArrivalPrediction.class);
         }
 
-        public List<Map<String, Object>> getTransportModes() {
-                rateLimiter.acquire();
-                return webClient.get()
-                                .uri(uriBuilder -> uriBuilder
+        public Mono<List<Map<String, Object>>> fetchTransportModes() {
+                return getMono(TflResilience.Endpoint.METADATA,
+                                uriBuilder -> uriBuilder
                                                 .path("/Journey/Meta/Modes")
                                                 .queryParam("app_key", appKey)
-                                                .build())
-                                .retrieve()
-                                .bodyToMono(
-                                                new org.springframework.core.ParameterizedTypeReference<List<Map<String, Object>>>() {
-                                                })
-                                .timeout(java.time.Duration.ofSeconds(apiTimeout))
-                                .block();
+                                                .build(),
+                                LIST_OF_MAPS);
         }
 
-        public List<Map<String, Object>> getLinesByMode(String mode) {
-                rateLimiter.acquire();
-                return webClient.get()
-                                .uri(uriBuilder -> uriBuilder
+        public Mono<List<TflLine>> fetchLinesByMode(String mode) {
+                return getCachedMono(TflResilience.Endpoint.METADATA,
+                                uriBuilder -> uriBuilder
                                                 .path("/Line/Mode/{mode}")
                                                 .queryParam("app_key", appKey)
-                                                .build(mode))
-                                .retrieve()
-                                .bodyToMono(
-                                                new org.springframework.core.ParameterizedTypeReference<List<Map<String, Object>>>() {
-                                                })
-                                .timeout(java.time.Duration.ofSeconds(apiTimeout))
-                                .block();
+                                                .build(mode),
+                                LIST_OF_LINES);
         }
 
-        public List<Map<String, Object>> getStopPointsByLine(String lineId) {
-                rateLimiter.acquire();
-                return webClient.get()
-                                .uri(uriBuilder -> uriBuilder
+        public Mono<List<TflStopPoint>> fetchStopPointsByLine(String lineId) {
+                return getCachedMono(TflResilience.Endpoint.METADATA,
+                                uriBuilder -> uriBuilder
                                                 .path("/Line/{lineId}/StopPoints")
                                                 .queryParam("app_key", appKey)
-                                                .build(lineId))
-                                .retrieve()
-                                .bodyToMono(
-                                                new org.springframework.core.ParameterizedTypeReference<List<Map<String, Object>>>() {
-                                                })
-                                .timeout(java.time.Duration.ofSeconds(apiTimeout))
-                                .block();
+                                                .build(lineId),
+                                LIST_OF_STOP_POINTS);
         }
 
-        public Map<String, Object> getLineRoute(String lineId) {
-                rateLimiter.acquire();
-                return webClient.get()
-                                .uri(uriBuilder -> uriBuilder
+        public Mono<TflLineRoute> fetchLineRoute(String lineId) {
+                return getCachedMono(TflResilience.Endpoint.METADATA,
+                                uriBuilder -> uriBuilder
                                                 .path("/Line/{lineId}/Route")
                                                 .queryParam("app_key", appKey)
-                                                .build(lineId))
-                                .retrieve()
-                                .bodyToMono(new org.springframework.core.ParameterizedTypeReference<Map<String, Object>>() {
-                                })
-                                .timeout(java.time.Duration.ofSeconds(apiTimeout))
-                                .block();
+                                                .build(lineId),
+                                LINE_ROUTE);
         }
 
-        public Map<String, Object> getRouteSequence(String lineId, String direction) {
-                rateLimiter.acquire();
-                return webClient.get()
-                                .uri(uriBuilder -> uriBuilder
+        public Mono<TflRouteSequence> fetchRouteSequence(String lineId, String direction) {
+                return getCachedMono(TflResilience.Endpoint.METADATA,
+                                uriBuilder -> uriBuilder
                                                 .path("/Line/{lineId}/Route/Sequence/{direction}")
                                                 .queryParam("app_key", appKey)
                                                 .queryParam("excludeCrowding", true)
-                                                .build(lineId, direction))
-                                .retrieve()
-                                .bodyToMono(new org.springframework.core.ParameterizedTypeReference<Map<String, Object>>() {
-                                })
-                                .timeout(java.time.Duration.ofSeconds(apiTimeout))
-                                .block();
+                                                .build(lineId, direction),
+                                ROUTE_SEQUENCE);
         }
 
-        public List<Map<String, Object>> getLineStatuses(String modes) {
-                rateLimiter.acquire();
-                return webClient.get()
-                                .uri(uriBuilder -> uriBuilder
+        public Mono<List<TflLine>> fetchLineStatuses(String modes) {
+                return getMono(TflResilience.Endpoint.LINE_STATUS,
+                                uriBuilder -> uriBuilder
                                                 .path("/Line/Mode/{modes}/Status")
                                                 .queryParam("app_key", appKey)
-                                                .build(modes))
-                                .retrieve()
-                                .bodyToMono(
-                                                new org.springframework.core.ParameterizedTypeReference<List<Map<String, Object>>>() {
+                                                .build(modes),
+                                LIST_OF_LINES);
+        }
+
+        public List<ArrivalPrediction> getArrivals(String stationId) {
+                return fetchArrivals(stationId).collectList().block();
+        }
+
+        public List<ArrivalPrediction> getArrivalsByMode(String mode) {
+                return fetchArrivalsByMode(mode).collectList().block();
+        }
+
+        public List<Map<String, Object>> getTransportModes() {
+                return fetchTransportModes().block();
+        }
+
+        public List<TflLine> getLinesByMode(String mode) {
+                return fetchLinesByMode(mode).block();
+        }
+
+        public List<TflStopPoint> getStopPointsByLine(String lineId) {
+                return fetchStopPointsByLine(lineId).block();
+        }
+
+        public TflLineRoute getLineRoute(String lineId) {
+                return fetchLineRoute(lineId).block();
+        }
+
+        public TflRouteSequence getRouteSequence(String lineId, String direction) {
+                return fetchRouteSequence(lineId, direction).block();
+        }
+
+        public List<TflLine> getLineStatuses(String modes) {
+                return fetchLineStatuses(modes).block();
+        }
+
+        /**
+         * GET with concurrent identical requests coalesced into one upstream call.
+         */
+        private <T> Mono<T> getMono(TflResilience.Endpoint endpoint, Function<UriBuilder, URI> uriFunction,
+                        ParameterizedTypeReference<T> type) {
+                return Mono.defer(() -> {
+                        URI uri = uriFunction.apply(uriBuilderFactory.builder());
+                        return singleFlight.execute(requestKey(uri), () -> resilience.execute(endpoint,
+                                        () -> webClient.get()
+                                                        .uri(uri)
+                                                        .retrieve()
+                                                        .bodyToMono(type)
+                                                        .timeout(Duration.ofSeconds(apiTimeout))));
+                });
+        }
+
+        /**
+         * GET through the HTTP cache. A fresh entry is returned without a permit;
+         * otherwise the request carries the stored validators and a 304 reuses the
+         * cached value instead of downloading and parsing the body again.
+         */
+        private <T> Mono<T> getCachedMono(TflResilience.Endpoint endpoint, Function<UriBuilder, URI> uriFunction,
+                        ParameterizedTypeReference<T> type) {
+                // A cached response would never reach the recorder
+                if (!httpCache.isEnabled() || recording) {
+                        return getMono(endpoint, uriFunction, type);
+                }
+                return Mono.defer(() -> {
+                        URI uri = uriFunction.apply(uriBuilderFactory.builder());
+                        String key = requestKey(uri);
+                        return singleFlight.execute(key, () -> getThroughCache(endpoint, uri, key, type));
+                });
+        }
+
+        private <T> Mono<T> getThroughCache(TflResilience.Endpoint endpoint, URI uri, String key,
+                        ParameterizedTypeReference<T> type) {
+                JavaType javaType = TypeFactory.defaultInstance().constructType(type.getType());
+                TflHttpCache.Entry inMemory = httpCache.peek(key);
+                if (inMemory != null) {
+                        return getThroughCache(endpoint, uri, key, javaType, inMemory);
+                }
+                // First access reads the entry from disk, which must not block the event loop
+                return Mono.fromCallable(() -> Optional.ofNullable(httpCache.lookup(key)))
+                                .subscribeOn(Schedulers.boundedElastic())
+                                .flatMap(cached -> getThroughCache(endpoint, uri, key, javaType, cached.orElse(null)));
+        }
+
+        private <T> Mono<T> getThroughCache(TflResilience.Endpoint endpoint, URI uri, String key, JavaType javaType,
+                        TflHttpCache.Entry cached) {
+                if (cached != null && cached.isFresh()) {
+                        return Mono.fromCallable(() -> httpCache.<T>read(cached, javaType, true))
+                                        .subscribeOn(Schedulers.boundedElastic());
+                }
+                return resilience.execute(endpoint, () -> webClient.get()
+                                                .uri(uri)
+                                                .headers(headers -> {
+                                                        if (cached == null)
+                                                                return;
+                                                        if (cached.getEtag() != null)
+                                                                headers.setIfNoneMatch(cached.getEtag());
+                                                        if (cached.getLastModified() != null)
+                                                                headers.set("If-Modified-Since", cached.getLastModified());
+                                                })
+                                                .exchangeToMono(response -> {
+                                                        if (cached != null && response.statusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                                                                HttpHeaders headers = response.headers().asHttpHeaders();
+                                                                return response.releaseBody()
+                                                                                .then(Mono.fromCallable(() -> httpCache.<T>read(
+                                                                                                httpCache.revalidate(cached, headers), javaType, false))
+                                                                                                .subscribeOn(Schedulers.boundedElastic()));
+                                                        }
+                                                        if (response.statusCode().is2xxSuccessful()) {
+                                                                return response.bodyToMono(byte[].class)
+                                                                                .publishOn(Schedulers.boundedElastic())
+                                                                                .map(body -> store(key, body, response.headers().asHttpHeaders(), javaType));
+                                                        }
+                                                        return response.createError();
                                                 })
-                                .timeout(java.time.Duration.ofSeconds(apiTimeout))
-                                .block();
+                                                .timeout(Duration.ofSeconds(apiTimeout)));
+        }
+
+        private <T> T store(String key, byte[] body, HttpHeaders headers, JavaType type) {
+                try {
+                        return httpCache.store(key, body, headers, type);
+                } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                }
+        }
+
+        /**
+         * Request identity for coalescing and caching: the URI without the app key,
+         * so keys (and the cache files named after them) never contain credentials.
+         */
+        private static String requestKey(URI uri) {
+                return UriComponentsBuilder.fromUri(uri)
+                                .replaceQueryParam("app_key")
+                                .build()
+                                .toUriString();
+        }
+
+        private <T> Flux<T> getFlux(TflResilience.Endpoint endpoint, Function<UriBuilder, URI> uriFunction,
+                        Class<T> type) {
+                return resilience.executeMany(endpoint, () -> webClient.get()
+                                .uri(uriFunction)
+                                .retrieve()
+                                .bodyToFlux(type)
+                                .timeout(Duration.ofSeconds(apiTimeout)));
         }
 }
@@ -0,0 +1,12 @@
+package com.stationly.backend.client;
+
+/**
+ * Raised instead of calling TfL while the circuit breaker for an endpoint
+ * family is open.
+ */
+public class TflCircuitOpenException extends RuntimeException {
+
+    public TflCircuitOpenException(TflResilience.Endpoint endpoint) {
+        super("TfL circuit open for " + endpoint + " requests");
+    }
+}
@@ -0,0 +1,60 @@
+package com.stationly.backend.client;
+
+import com.stationly.backend.model.ConnectionPoolStats;
+import org.springframework.stereotype.Component;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects Reactor Netty pool gauges for the TfL connection provider.
+ * Reactor Netty registers one pool per remote address; the snapshot sums them.
+ */
+@Component
+public class TflConnectionPoolMetrics implements ConnectionProvider.MeterRegistrar {
+
+    private final Map<String, ConnectionPoolMetrics> pools = new ConcurrentHashMap<>();
+
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress,
+            ConnectionPoolMetrics metrics) {
+        pools.put(id, metrics);
+    }
+
+    @Override
+    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+        pools.remove(id);
+    }
+
+    /**
+     * @return Active, idle and pending-acquire counts summed across remote addresses
+     */
+    public ConnectionPoolStats getStats() {
+        int active = 0;
+        int idle = 0;
+        int allocated = 0;
+        int pending = 0;
+        int maxConnections = 0;
+        int maxPending = 0;
+        for (ConnectionPoolMetrics metrics : pools.values()) {
+            active += metrics.acquiredSize();
+            idle += metrics.idleSize();
+            allocated += metrics.allocatedSize();
+            pending += metrics.pendingAcquireSize();
+            maxConnections += metrics.maxAllocatedSize();
+            maxPending += metrics.maxPendingAcquireSize();
+        }
+        return ConnectionPoolStats.builder()
+                .pools(pools.size())
+                .activeConnections(active)
+                .idleConnections(idle)
+                .allocatedConnections(allocated)
+                .pendingAcquires(pending)
+                .maxConnections(maxConnections)
+                .maxPendingAcquires(maxPending)
+                .build();
+    }
+}
@@ -0,0 +1,294 @@
+package com.stationly.backend.client;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stationly.backend.model.HttpCacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Disk-backed HTTP cache for rarely changing TfL responses (lines, stop points,
+ * routes). Bodies are stored with their validators (ETag / Last-Modified) and an
+ * expiry derived from Cache-Control max-age or Expires. Responses without any
+ * freshness information are kept for {@code tfl.cache.min-ttl}; an explicit
+ * {@code no-cache}, {@code no-store} or {@code max-age} is always honoured.
+ * <p>
+ * Fresh entries are served without touching the network. Stale entries are
+ * revalidated with a conditional GET; on 304 the previously decoded value is
+ * reused, so parsing is skipped entirely while it is still in memory.
+ */
+@Component
+@Slf4j
+public class TflHttpCache {
+
+    private static final Pattern MAX_AGE = Pattern.compile("(?:^|,)\\s*(?:max-age|s-maxage)=(\\d+)");
+    private static final Pattern NO_CACHE = Pattern.compile("(?:^|,)\\s*no-(?:cache|store)\\b");
+
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final Duration minTtl;
+    private final boolean enabled;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, SoftReference<Object>> decoded = new ConcurrentHashMap<>();
+
+    private final LongAdder freshHits = new LongAdder();
+    private final LongAdder revalidated = new LongAdder();
+    private final LongAdder stored = new LongAdder();
+    private final LongAdder parsesSkipped = new LongAdder();
+
+    public TflHttpCache(@Value("${tfl.cache.enabled:true}") boolean enabled,
+            @Value("${tfl.cache.dir:${java.io.tmpdir}/stationly-tfl-cache}") String directory,
+            @Value("${tfl.cache.min-ttl:6h}") Duration minTtl) {
+        this.objectMapper = TflJson.mapper();
+        this.minTtl = minTtl;
+        this.directory = directory != null && !directory.isEmpty() ? Paths.get(directory) : null;
+        this.enabled = enabled && this.directory != null && createDirectory(this.directory);
+        if (this.enabled) {
+            log.info("🗄️ TfL HTTP cache enabled at {} (min TTL {})", this.directory, minTtl);
+        }
+    }
+
+    private static boolean createDirectory(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            return true;
+        } catch (IOException e) {
+            log.warn("⚠️ Cannot create TfL cache directory {}. HTTP cache disabled: {}", directory, e.getMessage());
+            return false;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return The cached entry for a request key if it is already in memory;
+     *         null if it has to be looked up on disk
+     */
+    public Entry peek(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Blocking: reads the entry's metadata from disk on first access, so call it
+     * off the event loop. The file is read outside the map lock; if two callers
+     * race, the first entry put wins.
+     *
+     * @return The cached entry for a request key; null if nothing usable is
+     *         cached
+     */
+    public Entry lookup(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        Entry loaded = loadEntry(key);
+        if (loaded == null) {
+            return null;
+        }
+        Entry raced = entries.putIfAbsent(key, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    /**
+     * Stores a 200 response body with its validators and returns the decoded value.
+     */
+    public <T> T store(String key, byte[] body, HttpHeaders headers, JavaType type) throws IOException {
+        T value = objectMapper.readValue(body, type);
+        Entry entry = new Entry(key, headers.getETag(), headers.getFirst(HttpHeaders.LAST_MODIFIED),
+                expiresAt(headers));
+        String file = fileName(key);
+        writeAtomically(directory.resolve(file + ".body"), body);
+        writeMeta(file, entry);
+        entries.put(key, entry);
+        decoded.put(key, new SoftReference<>(value));
+        stored.increment();
+        return value;
+    }
+
+    /**
+     * Extends the lifetime of an entry after a 304 Not Modified.
+     */
+    public Entry revalidate(Entry entry, HttpHeaders headers) {
+        String etag = headers.getETag() != null ? headers.getETag() : entry.etag;
+        String lastModified = headers.getFirst(HttpHeaders.LAST_MODIFIED) != null
+                ? headers.getFirst(HttpHeaders.LAST_MODIFIED)
+                : entry.lastModified;
+        Entry refreshed = new Entry(entry.key, etag, lastModified, expiresAt(headers));
+        try {
+            writeMeta(fileName(entry.key), refreshed);
+        } catch (IOException e) {
+            log.warn("⚠️ Failed to persist revalidated cache entry {}: {}", entry.key, e.getMessage());
+        }
+        entries.put(entry.key, refreshed);
+        revalidated.increment();
+        return refreshed;
+    }
+
+    /**
+     * Returns the decoded value for an entry, reusing the in-memory copy when it
+     * is still reachable and only parsing the stored body otherwise.
+     *
+     * @param fresh true when served without a network round trip
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T read(Entry entry, JavaType type, boolean fresh) throws IOException {
+        if (fresh) {
+            freshHits.increment();
+        }
+        SoftReference<Object> ref = decoded.get(entry.key);
+        Object value = ref != null ? ref.get() : null;
+        if (value != null) {
+            parsesSkipped.increment();
+            return (T) value;
+        }
+        T parsed = objectMapper.readValue(directory.resolve(fileName(entry.key) + ".body").toFile(), type);
+        decoded.put(entry.key, new SoftReference<>(parsed));
+        return parsed;
+    }
+
+    public HttpCacheStats getStats() {
+        return HttpCacheStats.builder()
+                .enabled(enabled)
+                .entries(entries.size())
+                .freshHits(freshHits.sum())
+                .revalidated(revalidated.sum())
+                .stored(stored.sum())
+                .parsesSkipped(parsesSkipped.sum())
+                .build();
+    }
+
+    // The min TTL only stands in for missing freshness information; it never
+    // overrides what the server asked for
+    private long expiresAt(HttpHeaders headers) {
+        long maxAgeSeconds;
+        String cacheControl = headers.getCacheControl();
+        Matcher matcher = cacheControl != null ? MAX_AGE.matcher(cacheControl) : null;
+        if (cacheControl != null && NO_CACHE.matcher(cacheControl).find()) {
+            return System.currentTimeMillis();
+        } else if (matcher != null && matcher.find()) {
+            maxAgeSeconds = Long.parseLong(matcher.group(1));
+        } else if (headers.getExpires() > 0) {
+            maxAgeSeconds = Math.max(0, (headers.getExpires() - System.currentTimeMillis()) / 1000);
+        } else {
+            return System.currentTimeMillis() + minTtl.toMillis();
+        }
+        String age = headers.getFirst(HttpHeaders.AGE);
+        if (age != null) {
+            try {
+                maxAgeSeconds = Math.max(0, maxAgeSeconds - Long.parseLong(age.trim()));
+            } catch (NumberFormatException ignored) {
+                // Malformed Age header; use max-age as is
+            }
+        }
+        return System.currentTimeMillis() + maxAgeSeconds * 1000;
+    }
+
+    private Entry loadEntry(String key) {
+        if (!enabled) {
+            return null;
+        }
+        String file = fileName(key);
+        Path meta = directory.resolve(file + ".meta");
+        if (!Files.exists(meta) || !Files.exists(directory.resolve(file + ".body"))) {
+            return null;
+        }
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(meta)) {
+            props.load(in);
+            if (!key.equals(props.getProperty("key"))) {
+                return null; // hash collision; treat as a miss
+            }
+            return new Entry(key, props.getProperty("etag"), props.getProperty("lastModified"),
+                    Long.parseLong(props.getProperty("expiresAt", "0")));
+        } catch (IOException | NumberFormatException e) {
+            log.warn("⚠️ Ignoring unreadable cache metadata {}: {}", meta, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeMeta(String file, Entry entry) throws IOException {
+        Properties props = new Properties();
+        props.setProperty("key", entry.key);
+        if (entry.etag != null)
+            props.setProperty("etag", entry.etag);
+        if (entry.lastModified != null)
+            props.setProperty("lastModified", entry.lastModified);
+        props.setProperty("expiresAt", Long.toString(entry.expiresAt));
+
+        Path tmp = Files.createTempFile(directory, file, ".meta.tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            props.store(out, null);
+        }
+        Files.move(tmp, directory.resolve(file + ".meta"), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void writeAtomically(Path target, byte[] body) throws IOException {
+        Path tmp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        Files.write(tmp, body);
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String fileName(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Validators and expiry for one cached response.
+     */
+    public static final class Entry {
+        private final String key;
+        private final String etag;
+        private final String lastModified;
+        private final long expiresAt;
+
+        Entry(String key, String etag, String lastModified, long expiresAt) {
+            this.key = key;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.expiresAt = expiresAt;
+        }
+
+        public boolean isFresh() {
+            return System.currentTimeMillis() < expiresAt;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.stationly.backend.client;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+/**
+ * Object mapper dedicated to decoding TfL responses.
+ * <p>
+ * Blackbird replaces reflective setter/constructor calls with generated lambdas,
+ * which matters on the large stop point and arrival payloads. Unknown properties
+ * are skipped by the parser instead of failing. Kept out of the Spring context so
+ * the application's own {@code ObjectMapper} auto-configuration is untouched.
+ */
+final class TflJson {
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .addModule(new BlackbirdModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .disable(MapperFeature.DEFAULT_VIEW_INCLUSION)
+            .build();
+
+    private TflJson() {
+    }
+
+    static ObjectMapper mapper() {
+        return MAPPER;
+    }
+}
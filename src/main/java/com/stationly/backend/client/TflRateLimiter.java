@@ -1,43 +1,254 @@
 package com.stationly.backend.client;
 
+import com.stationly.backend.model.RateLimiterStats;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Rate limiter to enforce TfL API limits (300 requests per minute).
- * This ensures a minimum gap of ~200ms between requests.
+ * <p>
+ * Lock-free token bucket (GCRA): a single atomic "theoretical arrival time" is
+ * advanced with CAS, so callers never queue on a monitor. Up to {@code burst}
+ * permits are granted back-to-back after an idle period, then permits are
+ * spaced at the configured rate. Waiting happens outside any lock, either by
+ * sleeping ({@link #acquire(Priority)}) or on a timer
+ * ({@link #acquireAsync(Priority)}).
+ * <p>
+ * Requests are split into priority lanes. {@link Priority#REALTIME} may drain
+ * the whole bucket and books future slots when it has to wait.
+ * {@link Priority#BULK} only takes a token while more than the reserved
+ * headroom is left and never books ahead, so it soaks up leftover budget
+ * without delaying real-time calls.
  */
 @Component
 @Slf4j
 public class TflRateLimiter {
 
-    // 300 requests per minute = 5 requests per second = 1 request every 200ms.
-    // We add a small buffer to be safe, so 210ms.
-    private static final long MIN_REQUEST_INTERVAL_MS = 210;
+    // 300 requests per minute is the TfL cap; default slightly below to be safe.
+    private static final int DEFAULT_REQUESTS_PER_MINUTE = 285;
+    private static final int DEFAULT_BURST = 5;
+    private static final int DEFAULT_REALTIME_RESERVED = 2;
 
-    private long nextAvailableTime = System.currentTimeMillis();
+    public enum Priority {
+        /** Arrivals and line status: user-visible, latency sensitive. */
+        REALTIME,
+        /** Metadata sync (lines, stop points, routes): uses leftover budget only. */
+        BULK
+    }
+
+    private final int requestsPerMinute;
+    private final int burst;
+    private final int realtimeReserved;
+    private final long intervalNanos;
+    private final Map<Priority, Lane> lanes = new EnumMap<>(Priority.class);
+
+    // Theoretical arrival time of the next permit (System.nanoTime based)
+    private final AtomicLong theoreticalArrivalTime = new AtomicLong(System.nanoTime());
+
+    public TflRateLimiter() {
+        this(DEFAULT_REQUESTS_PER_MINUTE, DEFAULT_BURST, DEFAULT_REALTIME_RESERVED);
+    }
+
+    @Autowired
+    public TflRateLimiter(
+            @Value("${tfl.rate-limit.requests-per-minute:" + DEFAULT_REQUESTS_PER_MINUTE + "}") int requestsPerMinute,
+            @Value("${tfl.rate-limit.burst:" + DEFAULT_BURST + "}") int burst,
+            @Value("${tfl.rate-limit.realtime-reserved:" + DEFAULT_REALTIME_RESERVED + "}") int realtimeReserved) {
+        if (requestsPerMinute <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("Rate limit and burst must be positive");
+        }
+        if (realtimeReserved < 0 || realtimeReserved >= burst) {
+            throw new IllegalArgumentException("Real-time reservation must be between 0 and burst - 1");
+        }
+        this.requestsPerMinute = requestsPerMinute;
+        this.burst = burst;
+        this.realtimeReserved = realtimeReserved;
+        this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / requestsPerMinute;
+        lanes.put(Priority.REALTIME, new Lane((burst - 1) * intervalNanos, true));
+        lanes.put(Priority.BULK, new Lane((burst - 1 - realtimeReserved) * intervalNanos, false));
+        log.info("🚦 TfL rate limiter: {} req/min, burst {}, {} reserved for real-time", requestsPerMinute, burst,
+                realtimeReserved);
+    }
+
+    /**
+     * Blocks until a bulk request permit is available.
+     */
+    public void acquire() {
+        acquire(Priority.BULK);
+    }
+
+    /**
+     * Blocks until a request permit is available for the given priority.
+     * Thread-safe and lock-free; the calling thread sleeps without holding a monitor.
+     */
+    public void acquire(Priority priority) {
+        Lane lane = lanes.get(priority);
+        long start = System.nanoTime();
+        long waitNanos = claim(lane, start);
+        if (waitNanos <= 0) {
+            lane.record(0);
+            return;
+        }
+
+        lane.waiting.incrementAndGet();
+        try {
+            while (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+                waitNanos = lane.reserveAhead ? 0 : claim(lane, System.nanoTime());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("⚠️ Rate limiter interrupted during wait", e);
+        } finally {
+            lane.waiting.decrementAndGet();
+            lane.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Non-blocking bulk permit for reactive callers.
+     */
+    public Mono<Void> acquireAsync() {
+        return acquireAsync(Priority.BULK);
+    }
+
+    /**
+     * Non-blocking permit for reactive callers. The returned Mono completes once
+     * the permit is due; no thread is parked while waiting.
+     */
+    public Mono<Void> acquireAsync(Priority priority) {
+        Lane lane = lanes.get(priority);
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            long waitNanos = claim(lane, start);
+            if (waitNanos <= 0) {
+                lane.record(0);
+                return Mono.empty();
+            }
+            lane.waiting.incrementAndGet();
+            // Record before the permit is signalled so stats are consistent once the caller resumes
+            return awaitPermit(lane, waitNanos)
+                    .doOnTerminate(() -> {
+                        lane.waiting.decrementAndGet();
+                        lane.record(System.nanoTime() - start);
+                    })
+                    .doOnCancel(lane.waiting::decrementAndGet);
+        });
+    }
+
+    private Mono<Void> awaitPermit(Lane lane, long waitNanos) {
+        return Mono.delay(Duration.ofNanos(waitNanos))
+                .then(Mono.defer(() -> {
+                    if (lane.reserveAhead) {
+                        return Mono.empty();
+                    }
+                    long next = claim(lane, System.nanoTime());
+                    return next <= 0 ? Mono.<Void>empty() : awaitPermit(lane, next);
+                }));
+    }
 
     /**
-     * Blocks until a request permit is available.
-     * Thread-safe.
+     * Tries to take the next permit slot for a lane.
+     * <p>
+     * Lanes that reserve ahead always claim a slot and the result is how long the
+     * caller must wait for it. Other lanes only claim a slot that is due now;
+     * otherwise nothing is taken and the result is how long to wait before
+     * retrying.
      */
-    public synchronized void acquire() {
-        long now = System.currentTimeMillis();
-        if (now < nextAvailableTime) {
-            long waitTime = nextAvailableTime - now;
-            try {
-                TimeUnit.MILLISECONDS.sleep(waitTime);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                log.warn("⚠️ Rate limiter interrupted during wait", e);
+    private long claim(Lane lane, long now) {
+        while (true) {
+            long current = theoreticalArrivalTime.get();
+            long base = Math.max(current, now);
+            long waitNanos = base - lane.toleranceNanos - now;
+            if (waitNanos > 0 && !lane.reserveAhead) {
+                return waitNanos;
+            }
+            if (theoreticalArrivalTime.compareAndSet(current, base + intervalNanos)) {
+                return Math.max(0, waitNanos);
+            }
+        }
+    }
+
+    /**
+     * @return Snapshot of permit counters, wait times and queue depth, overall and
+     *         per priority lane
+     */
+    public RateLimiterStats getStats() {
+        Map<String, RateLimiterStats.LaneStats> laneStats = new LinkedHashMap<>();
+        long admitted = 0;
+        long delayed = 0;
+        long waitNanos = 0;
+        long maxWait = 0;
+        int queueDepth = 0;
+        for (Map.Entry<Priority, Lane> entry : lanes.entrySet()) {
+            Lane lane = entry.getValue();
+            long laneAdmitted = lane.admitted.sum();
+            long laneDelayed = lane.delayed.sum();
+            long laneWaitNanos = lane.totalWaitNanos.sum();
+            long laneMaxWait = lane.maxWaitNanos.get();
+            int laneWaiting = lane.waiting.get();
+            laneStats.put(entry.getKey().name(), RateLimiterStats.LaneStats.builder()
+                    .admitted(laneAdmitted)
+                    .delayed(laneDelayed)
+                    .totalWaitMs(TimeUnit.NANOSECONDS.toMillis(laneWaitNanos))
+                    .averageWaitMs(laneDelayed == 0 ? 0.0 : laneWaitNanos / 1_000_000.0 / laneDelayed)
+                    .maxWaitMs(TimeUnit.NANOSECONDS.toMillis(laneMaxWait))
+                    .queueDepth(laneWaiting)
+                    .build());
+            admitted += laneAdmitted;
+            delayed += laneDelayed;
+            waitNanos += laneWaitNanos;
+            maxWait = Math.max(maxWait, laneMaxWait);
+            queueDepth += laneWaiting;
+        }
+
+        return RateLimiterStats.builder()
+                .requestsPerMinute(requestsPerMinute)
+                .burst(burst)
+                .realtimeReserved(realtimeReserved)
+                .permitsIssued(admitted)
+                .permitsDelayed(delayed)
+                .totalWaitMs(TimeUnit.NANOSECONDS.toMillis(waitNanos))
+                .averageWaitMs(delayed == 0 ? 0.0 : waitNanos / 1_000_000.0 / delayed)
+                .maxWaitMs(TimeUnit.NANOSECONDS.toMillis(maxWait))
+                .queueDepth(queueDepth)
+                .lanes(laneStats)
+                .build();
+    }
+
+    private static final class Lane {
+        final long toleranceNanos;
+        final boolean reserveAhead;
+        final LongAdder admitted = new LongAdder();
+        final LongAdder delayed = new LongAdder();
+        final LongAdder totalWaitNanos = new LongAdder();
+        final AtomicLong maxWaitNanos = new AtomicLong();
+        final AtomicInteger waiting = new AtomicInteger();
+
+        Lane(long toleranceNanos, boolean reserveAhead) {
+            this.toleranceNanos = toleranceNanos;
+            this.reserveAhead = reserveAhead;
+        }
+
+        void record(long waitNanos) {
+            admitted.increment();
+            if (waitNanos > 0) {
+                delayed.increment();
+                totalWaitNanos.add(waitNanos);
+                maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
             }
-            // Advance the next available time relative to the PLANNED time to keep cadence
-            nextAvailableTime += MIN_REQUEST_INTERVAL_MS;
-        } else {
-            // First request or after a long break
-            nextAvailableTime = now + MIN_REQUEST_INTERVAL_MS;
         }
     }
 }
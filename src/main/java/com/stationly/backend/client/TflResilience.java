@@ -0,0 +1,385 @@
+package com.stationly.backend.client;
+
+import com.stationly.backend.model.ResilienceStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Resilience policy for TfL calls, applied per endpoint family.
+ * <p>
+ * Every attempt takes a rate-limit permit, then its outcome feeds a circuit
+ * breaker and a latency window. Transient failures (timeouts, connection errors,
+ * 5xx and 429) are retried with jittered exponential backoff; 4xx responses are
+ * returned as is and count as a healthy upstream. After
+ * {@code failure-threshold} consecutive transient failures the breaker opens and
+ * calls fail fast with {@link TflCircuitOpenException} (without spending a
+ * permit) until {@code open-duration} has passed; then a single trial call
+ * decides whether it closes again.
+ * <p>
+ * Arrival streams can be hedged: when no prediction has arrived after the
+ * configured latency percentile, a second identical request is raced against
+ * the first and whichever emits first is kept. A failing hedge never wins the
+ * race, and nothing is hedged unless the breaker is closed. Streams are only
+ * retried before their first element so consumers never see duplicates.
+ */
+@Component
+@Slf4j
+public class TflResilience {
+
+    private static final int LATENCY_WINDOW = 1024;
+
+    public enum Endpoint {
+        /** Arrival predictions; hedged when enabled. */
+        ARRIVALS(TflRateLimiter.Priority.REALTIME, true),
+        /** Line status polling. */
+        LINE_STATUS(TflRateLimiter.Priority.REALTIME, false),
+        /** Modes, lines, stop points and routes. */
+        METADATA(TflRateLimiter.Priority.BULK, false);
+
+        private final TflRateLimiter.Priority priority;
+        private final boolean hedged;
+
+        Endpoint(TflRateLimiter.Priority priority, boolean hedged) {
+            this.priority = priority;
+            this.hedged = hedged;
+        }
+
+        public TflRateLimiter.Priority getPriority() {
+            return priority;
+        }
+    }
+
+    private final TflRateLimiter rateLimiter;
+    private final int maxRetries;
+    private final Duration minBackoff;
+    private final Duration maxBackoff;
+    private final double jitter;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final boolean hedgingEnabled;
+    private final double hedgeQuantile;
+    private final long hedgeMinDelayNanos;
+    private final int hedgeMinSamples;
+    private final Map<Endpoint, EndpointState> states = new EnumMap<>(Endpoint.class);
+
+    public TflResilience(TflRateLimiter rateLimiter) {
+        this(rateLimiter, 2, Duration.ofMillis(200), Duration.ofSeconds(2), 0.5, 5, Duration.ofSeconds(30), true,
+                0.95, Duration.ofMillis(500), 20);
+    }
+
+    @Autowired
+    public TflResilience(TflRateLimiter rateLimiter,
+            @Value("${tfl.resilience.retry.max-retries:2}") int maxRetries,
+            @Value("${tfl.resilience.retry.min-backoff:200ms}") Duration minBackoff,
+            @Value("${tfl.resilience.retry.max-backoff:2s}") Duration maxBackoff,
+            @Value("${tfl.resilience.retry.jitter:0.5}") double jitter,
+            @Value("${tfl.resilience.circuit-breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${tfl.resilience.circuit-breaker.open-duration:30s}") Duration openDuration,
+            @Value("${tfl.resilience.hedge.enabled:true}") boolean hedgingEnabled,
+            @Value("${tfl.resilience.hedge.percentile:0.95}") double hedgeQuantile,
+            @Value("${tfl.resilience.hedge.min-delay:500ms}") Duration hedgeMinDelay,
+            @Value("${tfl.resilience.hedge.min-samples:20}") int hedgeMinSamples) {
+        if (maxRetries < 0 || failureThreshold <= 0) {
+            throw new IllegalArgumentException("Retries must be >= 0 and failure threshold positive");
+        }
+        if (jitter < 0 || jitter > 1 || hedgeQuantile <= 0 || hedgeQuantile >= 1) {
+            throw new IllegalArgumentException("Jitter must be in [0, 1] and hedge percentile in (0, 1)");
+        }
+        this.rateLimiter = rateLimiter;
+        this.maxRetries = maxRetries;
+        this.minBackoff = minBackoff;
+        this.maxBackoff = maxBackoff;
+        this.jitter = jitter;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.hedgingEnabled = hedgingEnabled;
+        this.hedgeQuantile = hedgeQuantile;
+        this.hedgeMinDelayNanos = hedgeMinDelay.toNanos();
+        this.hedgeMinSamples = hedgeMinSamples;
+        for (Endpoint endpoint : Endpoint.values()) {
+            states.put(endpoint, new EndpointState(endpoint));
+        }
+        log.info("🛡️ TfL resilience: {} retries ({}-{}, jitter {}), breaker after {} failures for {}, hedging {}",
+                maxRetries, minBackoff, maxBackoff, jitter, failureThreshold, openDuration,
+                hedgingEnabled ? "at p" + Math.round(hedgeQuantile * 100) : "off");
+    }
+
+    /**
+     * Runs a single-value TfL call under the endpoint's permit, breaker and retry
+     * policy. The supplier is invoked once per attempt.
+     */
+    public <T> Mono<T> execute(Endpoint endpoint, Supplier<Mono<T>> call) {
+        EndpointState state = states.get(endpoint);
+        return attemptOne(state, call)
+                .retryWhen(retrySpec(state, e -> true));
+    }
+
+    /**
+     * Runs a streaming TfL call under the endpoint's permit, breaker and retry
+     * policy, hedging it when the endpoint supports it.
+     */
+    public <T> Flux<T> executeMany(Endpoint endpoint, Supplier<Flux<T>> call) {
+        EndpointState state = states.get(endpoint);
+        return Flux.defer(() -> {
+            AtomicBoolean emitted = new AtomicBoolean();
+            Flux<T> request = hedgingEnabled && endpoint.hedged ? hedged(state, call) : attempt(state, call);
+            return request
+                    .doOnNext(item -> emitted.lazySet(true))
+                    .retryWhen(retrySpec(state, e -> !emitted.get()));
+        });
+    }
+
+    private <T> Flux<T> hedged(EndpointState state, Supplier<Flux<T>> call) {
+        return Flux.defer(() -> {
+            long delayNanos = hedgeDelayNanos(state);
+            // While half-open the primary holds the only trial; a hedge would just be rejected
+            if (delayNanos <= 0 || !state.isClosed()) {
+                return attempt(state, call);
+            }
+            AtomicBoolean hedgeFirst = new AtomicBoolean();
+            Flux<T> hedge = Mono.delay(Duration.ofNanos(delayNanos))
+                    .doOnNext(tick -> state.hedges.increment())
+                    .thenMany(attempt(state, call))
+                    .doOnNext(item -> {
+                        if (hedgeFirst.compareAndSet(false, true)) {
+                            state.hedgesWon.increment();
+                        }
+                    })
+                    // Only a value may win the race; a failed hedge leaves it to the primary
+                    .onErrorResume(e -> Flux.never());
+            return Flux.firstWithSignal(attempt(state, call), hedge);
+        });
+    }
+
+    /**
+     * One single-value upstream attempt: breaker check, rate-limit permit, then
+     * the call. The outcome is recorded as soon as the value (or completion)
+     * arrives.
+     */
+    private <T> Mono<T> attemptOne(EndpointState state, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            Permit permit = state.tryAcquire();
+            if (permit == Permit.REJECTED) {
+                state.rejected.increment();
+                return Mono.error(new TflCircuitOpenException(state.endpoint));
+            }
+            return rateLimiter.acquireAsync(state.endpoint.priority)
+                    .then(Mono.defer(() -> {
+                        state.calls.increment();
+                        long start = System.nanoTime();
+                        return call.get()
+                                .doOnSuccess(value -> {
+                                    state.latency.record(System.nanoTime() - start);
+                                    state.onSuccess();
+                                })
+                                .doOnError(e -> recordError(state, e));
+                    }))
+                    .doOnCancel(() -> {
+                        if (permit == Permit.TRIAL) {
+                            state.releaseTrial();
+                        }
+                    });
+        });
+    }
+
+    /**
+     * One streaming upstream attempt: breaker check, rate-limit permit, then the
+     * call. Latency is measured from the permit to the first element (or
+     * completion); a stream cancelled after its first element counts as a
+     * success.
+     */
+    private <T> Flux<T> attempt(EndpointState state, Supplier<Flux<T>> call) {
+        return Flux.defer(() -> {
+            Permit permit = state.tryAcquire();
+            if (permit == Permit.REJECTED) {
+                state.rejected.increment();
+                return Flux.error(new TflCircuitOpenException(state.endpoint));
+            }
+            AtomicBoolean first = new AtomicBoolean(true);
+            return rateLimiter.acquireAsync(state.endpoint.priority)
+                    .thenMany(Flux.defer(() -> {
+                        state.calls.increment();
+                        long start = System.nanoTime();
+                        return call.get()
+                                .doOnNext(item -> {
+                                    if (first.get() && first.compareAndSet(true, false)) {
+                                        state.latency.record(System.nanoTime() - start);
+                                    }
+                                })
+                                .doOnComplete(() -> {
+                                    if (first.compareAndSet(true, false)) {
+                                        state.latency.record(System.nanoTime() - start);
+                                    }
+                                    state.onSuccess();
+                                })
+                                .doOnError(e -> recordError(state, e));
+                    }))
+                    .doOnCancel(() -> {
+                        if (!first.get()) {
+                            state.onSuccess();
+                        } else if (permit == Permit.TRIAL) {
+                            state.releaseTrial();
+                        }
+                    });
+        });
+    }
+
+    private static void recordError(EndpointState state, Throwable e) {
+        if (isTransient(e)) {
+            state.onFailure();
+        } else {
+            state.onSuccess();
+        }
+    }
+
+    private Retry retrySpec(EndpointState state, Predicate<Throwable> allowed) {
+        return Retry.backoff(maxRetries, minBackoff)
+                .maxBackoff(maxBackoff)
+                .jitter(jitter)
+                .filter(e -> isTransient(e) && allowed.test(e))
+                .doBeforeRetry(signal -> {
+                    state.retries.increment();
+                    log.warn("🔁 Retrying TfL {} request (attempt {}): {}", state.endpoint,
+                            signal.totalRetries() + 2, signal.failure().toString());
+                })
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    private long hedgeDelayNanos(EndpointState state) {
+        if (state.latency.size() < hedgeMinSamples) {
+            return 0;
+        }
+        return Math.max(hedgeMinDelayNanos, state.latency.percentile(hedgeQuantile));
+    }
+
+    /**
+     * Failures worth retrying and counting against the breaker: the request may
+     * well succeed a moment later.
+     */
+    static boolean isTransient(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            int status = response.getStatusCode().value();
+            return status >= 500 || status == 429;
+        }
+        return e instanceof WebClientRequestException
+                || e instanceof TimeoutException
+                || e instanceof IOException;
+    }
+
+    /**
+     * @return Breaker state, retry/hedge counters and p50/p99 latency per endpoint
+     *         family
+     */
+    public ResilienceStats getStats() {
+        Map<String, ResilienceStats.EndpointStats> endpoints = new LinkedHashMap<>();
+        for (EndpointState state : states.values()) {
+            endpoints.put(state.endpoint.name(), ResilienceStats.EndpointStats.builder()
+                    .circuitState(state.circuitState())
+                    .calls(state.calls.sum())
+                    .failures(state.failures.sum())
+                    .retries(state.retries.sum())
+                    .rejected(state.rejected.sum())
+                    .hedges(state.hedges.sum())
+                    .hedgesWon(state.hedgesWon.sum())
+                    .latencySamples(state.latency.size())
+                    .p50LatencyMs(TimeUnit.NANOSECONDS.toMillis(state.latency.percentile(0.50)))
+                    .p99LatencyMs(TimeUnit.NANOSECONDS.toMillis(state.latency.percentile(0.99)))
+                    .build());
+        }
+        return ResilienceStats.builder()
+                .maxRetries(maxRetries)
+                .hedgingEnabled(hedgingEnabled)
+                .endpoints(endpoints)
+                .build();
+    }
+
+    // What the breaker allows an attempt to do
+    private enum Permit {
+        CALL, TRIAL, REJECTED
+    }
+
+    private final class EndpointState {
+        final Endpoint endpoint;
+        final LatencyRecorder latency = new LatencyRecorder(LATENCY_WINDOW);
+        final LongAdder calls = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder retries = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder hedges = new LongAdder();
+        final LongAdder hedgesWon = new LongAdder();
+
+        // Circuit breaker: 0 while closed, otherwise the nanoTime the breaker may half-open
+        final AtomicLong openUntil = new AtomicLong();
+        final AtomicInteger consecutiveFailures = new AtomicInteger();
+        final AtomicBoolean trialInFlight = new AtomicBoolean();
+
+        EndpointState(Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        Permit tryAcquire() {
+            long until = openUntil.get();
+            if (until == 0) {
+                return Permit.CALL;
+            }
+            return System.nanoTime() - until >= 0 && trialInFlight.compareAndSet(false, true)
+                    ? Permit.TRIAL
+                    : Permit.REJECTED;
+        }
+
+        boolean isClosed() {
+            return openUntil.get() == 0;
+        }
+
+        void onSuccess() {
+            consecutiveFailures.set(0);
+            if (openUntil.getAndSet(0) != 0) {
+                log.info("✅ TfL circuit for {} closed", endpoint);
+            }
+            trialInFlight.set(false);
+        }
+
+        void onFailure() {
+            failures.increment();
+            boolean trial = trialInFlight.getAndSet(false);
+            if (trial || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+                openUntil.set(System.nanoTime() + openNanos);
+                log.warn("⛔ TfL circuit for {} open for {}s after {} consecutive failures", endpoint,
+                        TimeUnit.NANOSECONDS.toSeconds(openNanos), consecutiveFailures.get());
+            }
+        }
+
+        void releaseTrial() {
+            trialInFlight.set(false);
+        }
+
+        String circuitState() {
+            long until = openUntil.get();
+            if (until == 0) {
+                return "CLOSED";
+            }
+            return System.nanoTime() - until >= 0 ? "HALF_OPEN" : "OPEN";
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.stationly.backend.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Record mode for the TfL client: tees every successful response body to disk
+ * under the name given by {@link #recordingName(String, String)}, with the
+ * observed latency in a {@code .meta} file next to it. The layout is what
+ * {@link com.stationly.backend.replay.TflReplayServer} serves, so a recording
+ * session can be replayed offline by pointing {@code tfl.api.base-url} at it.
+ * <p>
+ * Bodies are captured as they stream through, without changing what the
+ * decoder sees, and written off the event loop once complete. Later responses
+ * for the same path and query overwrite earlier ones. While recording, the
+ * client bypasses {@link TflHttpCache}, so static endpoints are recorded too.
+ */
+@Component
+@Slf4j
+public class TflResponseRecorder implements ExchangeFilterFunction {
+
+    private final boolean enabled;
+    private final Path directory;
+
+    public TflResponseRecorder(@Value("${tfl.record.enabled:false}") boolean enabled,
+            @Value("${tfl.record.dir:tfl-recordings}") String directory) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        if (enabled) {
+            log.info("⏺️ Recording TfL responses to {} (HTTP cache bypassed)", this.directory);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (!enabled) {
+            return next.exchange(request);
+        }
+        long start = System.nanoTime();
+        return next.exchange(request).map(response -> {
+            if (!response.statusCode().is2xxSuccessful()) {
+                return response;
+            }
+            Path target = resolve(request.url().getPath(), request.url().getRawQuery());
+            if (target == null) {
+                return response;
+            }
+            ByteArrayOutputStream captured = new ByteArrayOutputStream();
+            return response.mutate()
+                    .body(body -> body
+                            .doOnNext(buffer -> copy(buffer, captured))
+                            .doOnComplete(() -> {
+                                long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                                Schedulers.boundedElastic().schedule(() -> write(target, captured, latencyMs));
+                            }))
+                    .build();
+        });
+    }
+
+    private Path resolve(String requestPath, String rawQuery) {
+        if (requestPath.isEmpty() || requestPath.equals("/")) {
+            return null;
+        }
+        Path target = directory.resolve(recordingName(requestPath, rawQuery)).normalize();
+        return target.startsWith(directory) ? target : null;
+    }
+
+    /**
+     * @param path     Request path
+     * @param rawQuery Encoded query string, or null
+     * @return File of a request relative to the recording directory:
+     *         {@code <path>.json}, or {@code <path>@<query>.json} with the
+     *         query parameters sorted and {@code app_key} left out
+     */
+    public static String recordingName(String path, String rawQuery) {
+        String relative = path.startsWith("/") ? path.substring(1) : path;
+        String query = rawQuery == null ? "" : Arrays.stream(rawQuery.split("&"))
+                .filter(param -> !param.isEmpty() && !param.equals("app_key") && !param.startsWith("app_key="))
+                .sorted()
+                .collect(Collectors.joining("&"))
+                .replace("/", "%2F");
+        return relative + (query.isEmpty() ? "" : "@" + query) + ".json";
+    }
+
+    private static void copy(DataBuffer buffer, ByteArrayOutputStream captured) {
+        int length = buffer.readableByteCount();
+        ByteBuffer bytes = ByteBuffer.allocate(length);
+        buffer.toByteBuffer(buffer.readPosition(), bytes, 0, length);
+        captured.write(bytes.array(), 0, length);
+    }
+
+    private void write(Path target, ByteArrayOutputStream body, long latencyMs) {
+        try {
+            Files.createDirectories(target.getParent());
+            Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                body.writeTo(out);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            Properties meta = new Properties();
+            meta.setProperty("latencyMs", Long.toString(latencyMs));
+            meta.setProperty("bytes", Integer.toString(body.size()));
+            meta.setProperty("recordedAt", Long.toString(System.currentTimeMillis()));
+            try (OutputStream out = Files.newOutputStream(metaFile(target))) {
+                meta.store(out, null);
+            }
+            log.debug("⏺️ Recorded {} ({} bytes, {}ms)", target, body.size(), latencyMs);
+        } catch (IOException e) {
+            log.warn("⚠️ Failed to record TfL response to {}: {}", target, e.getMessage());
+        }
+    }
+
+    /**
+     * @return The metadata file stored next to a recorded body
+     */
+    public static Path metaFile(Path body) {
+        String name = body.getFileName().toString();
+        return body.resolveSibling(name.substring(0, name.length() - ".json".length()) + ".meta");
+    }
+}
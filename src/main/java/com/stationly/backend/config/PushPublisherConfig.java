@@ -0,0 +1,36 @@
+package com.stationly.backend.config;
+
+import com.stationly.backend.push.FirebasePushPublisher;
+import com.stationly.backend.push.InMemoryPushPublisher;
+import com.stationly.backend.push.PushPublisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the push transport behind FcmService.
+ * {@code fcm.publisher=firebase} sends through FCM; {@code memory} swaps in a
+ * local stand-in with simulated latency, errors and quota for load tests.
+ */
+@Configuration
+public class PushPublisherConfig {
+
+    @Bean
+    public PushPublisher pushPublisher(
+            @Value("${fcm.publisher:firebase}") String publisher,
+            @Value("${fcm.service-account-path:}") String serviceAccountPath,
+            @Value("${firebase.database-url:}") String databaseUrl,
+            @Value("${fcm.firebase.max-threads:16}") int firebaseThreads,
+            @Value("${fcm.memory.latency:50ms}") Duration latency,
+            @Value("${fcm.memory.jitter:50ms}") Duration jitter,
+            @Value("${fcm.memory.error-rate:0}") double errorRate,
+            @Value("${fcm.memory.quota-per-second:0}") int quotaPerSecond) {
+        return switch (publisher.trim().toLowerCase()) {
+            case "firebase" -> new FirebasePushPublisher(serviceAccountPath, databaseUrl, firebaseThreads);
+            case "memory" -> new InMemoryPushPublisher(latency, jitter, errorRate, quotaPerSecond);
+            default -> throw new IllegalArgumentException("Unknown fcm.publisher: " + publisher);
+        };
+    }
+}
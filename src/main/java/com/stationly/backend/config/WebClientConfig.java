@@ -1,14 +1,104 @@
 package com.stationly.backend.config;
 
+import com.stationly.backend.client.TflConnectionPoolMetrics;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.WriteTimeoutHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP client for the TfL API: a dedicated, sized connection pool with
+ * keep-alive, idle eviction, gzip response compression and explicit
+ * connect/read/write timeouts.
+ */
 @Configuration
+@Slf4j
 public class WebClientConfig {
 
+    @Value("${tfl.http.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${tfl.http.pending-acquire-max-count:500}")
+    private int pendingAcquireMaxCount;
+
+    @Value("${tfl.http.pending-acquire-timeout:45s}")
+    private Duration pendingAcquireTimeout;
+
+    @Value("${tfl.http.max-idle-time:30s}")
+    private Duration maxIdleTime;
+
+    @Value("${tfl.http.max-life-time:10m}")
+    private Duration maxLifeTime;
+
+    @Value("${tfl.http.evict-interval:30s}")
+    private Duration evictInterval;
+
+    @Value("${tfl.http.connect-timeout:5s}")
+    private Duration connectTimeout;
+
+    @Value("${tfl.http.read-timeout:30s}")
+    private Duration readTimeout;
+
+    @Value("${tfl.http.write-timeout:10s}")
+    private Duration writeTimeout;
+
+    @Value("${tfl.http.compression.enabled:true}")
+    private boolean compressionEnabled;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider tflConnectionProvider(TflConnectionPoolMetrics poolMetrics) {
+        log.info("🔌 TfL connection pool: max {} connections, {} pending, idle {}, life {}",
+                maxConnections, pendingAcquireMaxCount, maxIdleTime, maxLifeTime);
+        return ConnectionProvider.builder("tfl")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictInterval)
+                .lifo() // reuse the warmest connection, let the rest idle out
+                .metrics(true, () -> poolMetrics)
+                .build();
+    }
+
     @Bean
+    public HttpClient tflHttpClient(ConnectionProvider tflConnectionProvider) {
+        return HttpClient.create(tflConnectionProvider)
+                .compress(compressionEnabled) // Accept-Encoding: gzip + transparent decompression
+                .keepAlive(true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                // Per-request read timeout (max gap between reads while receiving a response)
+                .responseTimeout(readTimeout)
+                // Per-request handler; Reactor Netty removes it when the request terminates
+                .doOnRequest((request, connection) -> connection.addHandlerLast(
+                        new WriteTimeoutHandler(writeTimeout.toMillis(), TimeUnit.MILLISECONDS)));
+    }
+
+    @Bean
+    @Primary
     public WebClient.Builder webClientBuilder() {
         return WebClient.builder();
     }
+
+    /**
+     * Builder on the TfL connection pool, kept apart from the application-wide
+     * one so other clients neither share the pool nor pick up TfL settings.
+     * Callers customise a {@code clone()} of it.
+     */
+    @Bean
+    public WebClient.Builder tflWebClientBuilder(HttpClient tflHttpClient) {
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(tflHttpClient));
+    }
 }
@@ -1,12 +1,22 @@
 package com.stationly.backend.controller;
 
+import com.stationly.backend.client.TflApiClient;
+import com.stationly.backend.client.TflConnectionPoolMetrics;
+import com.stationly.backend.client.TflHttpCache;
+import com.stationly.backend.client.TflRateLimiter;
+import com.stationly.backend.client.TflResilience;
 import com.stationly.backend.model.RefreshSummary;
 import com.stationly.backend.model.LineStatusResponse;
 import com.stationly.backend.model.TransportMode;
 import com.stationly.backend.model.LineInfo;
 import com.stationly.backend.model.Station;
 import com.stationly.backend.model.LineRouteResponse;
+import com.stationly.backend.model.SimulatedPushStats;
+import com.stationly.backend.push.InMemoryPushPublisher;
+import com.stationly.backend.push.PushPublisher;
 import com.stationly.backend.repository.DataRepository;
+import com.stationly.backend.service.DataTransformationService;
+import com.stationly.backend.service.FcmService;
 import com.stationly.backend.service.LineService;
 import com.stationly.backend.service.TflPollingService;
 import lombok.RequiredArgsConstructor;
@@ -14,11 +24,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 
@@ -36,6 +50,14 @@ public class AdminController {
     private final DataRepository<LineStatusResponse, String> lineStatusRepository;
     private final TflPollingService tflPollingService;
     private final LineService lineService;
+    private final TflApiClient tflApiClient;
+    private final TflRateLimiter rateLimiter;
+    private final TflConnectionPoolMetrics connectionPoolMetrics;
+    private final TflHttpCache httpCache;
+    private final TflResilience resilience;
+    private final DataTransformationService transformationService;
+    private final FcmService fcmService;
+    private final PushPublisher pushPublisher;
 
     @Operation(summary = "Trigger Manual Refresh", description = "Manually triggers a data refresh for all configured transport modes from TFL API.")
     @ApiResponse(responseCode = "200", description = "Refresh completed successfully")
@@ -55,6 +77,33 @@ public class AdminController {
         return ResponseEntity.ok(statuses);
     }
 
+    @Operation(summary = "Runtime Stats", description = "Returns in-process counters for the TfL client (rate limiter lanes, HTTP connection pool, HTTP cache, request coalescing, retries/circuit breakers/hedging with p50/p99 latency), the transform cache hit rates and the FCM concurrency window with error counts.")
+    @ApiResponse(responseCode = "200", description = "Stats snapshot")
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("rateLimiter", rateLimiter.getStats());
+        stats.put("connectionPool", connectionPoolMetrics.getStats());
+        stats.put("httpCache", httpCache.getStats());
+        stats.put("coalescing", tflApiClient.getCoalescingStats());
+        stats.put("resilience", resilience.getStats());
+        stats.put("transformCaches", transformationService.getMemoStats());
+        stats.put("fcm", fcmService.getPublishStats());
+        return ResponseEntity.ok(stats);
+    }
+
+    @Operation(summary = "Simulated Push Deliveries", description = "Returns what the in-memory push stand-in (fcm.publisher=memory) has received: totals, simulated errors, peak in-flight messages and the busiest topics. Not available with the Firebase publisher.")
+    @ApiResponse(responseCode = "200", description = "Delivery stats snapshot")
+    @ApiResponse(responseCode = "404", description = "The in-memory publisher is not active")
+    @GetMapping("/push/stats")
+    public ResponseEntity<SimulatedPushStats> pushStats(
+            @Parameter(description = "Most topics to list") @RequestParam(defaultValue = "20") int limit) {
+        if (pushPublisher instanceof InMemoryPushPublisher memory) {
+            return ResponseEntity.ok(memory.getStats(limit));
+        }
+        return ResponseEntity.notFound().build();
+    }
+
     @Operation(summary = "System Cleanup", description = "Clears all cached data from Firestore to reset state.")
     @ApiResponse(responseCode = "200", description = "Cleanup completed")
     @GetMapping("/cleanup")
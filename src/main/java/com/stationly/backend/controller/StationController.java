@@ -1,6 +1,8 @@
 package com.stationly.backend.controller;
 
 import com.stationly.backend.model.Station;
+import com.stationly.backend.model.StationTopics;
+import com.stationly.backend.service.DataTransformationService;
 import com.stationly.backend.service.StationService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -22,6 +24,7 @@ import java.util.List;
 public class StationController {
 
     private final StationService stationService;
+    private final DataTransformationService transformationService;
 
     @Operation(summary = "Get Stations on Line", description = "Retrieves all stations associated with a specific line.")
     @GetMapping("/line/{lineId}")
@@ -30,6 +33,13 @@ public class StationController {
         return stationService.getStationsByLine(lineId);
     }
 
+    @Operation(summary = "Get Station Topics", description = "Returns the FCM topics carrying a station's arrival predictions. Stations too big for one payload are split per line (or per line and direction) when topic sharding is enabled; clients should subscribe to every listed topic. When a station is split, or gains a topic, a data message with action MIGRATE and the comma-separated topics is sent on its station topic.")
+    @GetMapping("/topics/{naptanId}")
+    public StationTopics getStationTopics(
+            @Parameter(description = "Station naptan ID (e.g. 940GZZLUKSX)", required = true) @PathVariable String naptanId) {
+        return transformationService.getStationTopics(naptanId);
+    }
+
     @Operation(summary = "Search Stations", description = "Search stations by mode, line, direction, or combination. Optionally filter by location.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Stations found", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Station.class))),
@@ -2,30 +2,47 @@ package com.stationly.backend.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.stationly.backend.util.IsoTimestamps;
+import com.stationly.backend.util.StringInterner;
 import lombok.Data;
 
-import java.time.ZonedDateTime;
-
+/**
+ * One row of a TfL arrivals response. The low-cardinality text fields are
+ * decoded through {@link StringInterner#ARRIVAL_FIELDS}, so the thousands of
+ * rows in a cycle share one instance per distinct value.
+ */
 @Data
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class ArrivalPrediction {
     private String id;
     private String naptanId; // Station ID
+    @JsonDeserialize(using = StringInterner.Deserializer.class)
     private String stationName;
+    @JsonDeserialize(using = StringInterner.Deserializer.class)
     private String lineId;
+    @JsonDeserialize(using = StringInterner.Deserializer.class)
     private String lineName;
+    @JsonDeserialize(using = StringInterner.Deserializer.class)
     private String platformName;
+    @JsonDeserialize(using = StringInterner.Deserializer.class)
     private String direction;
+    @JsonDeserialize(using = StringInterner.Deserializer.class)
     private String destinationName;
 
     @JsonProperty("destinationId")
     @com.fasterxml.jackson.annotation.JsonAlias({ "destinationId", "destinationNaptanId" })
     private String destinationNaptanId;
 
+    @JsonDeserialize(using = StringInterner.Deserializer.class)
     private String modeName;
     private Integer timeToStation; // seconds
     private String timeToLive; // ISO-8601 timestamp string
-    private ZonedDateTime expectedArrival;
+    @JsonDeserialize(using = IsoTimestamps.EpochMillisDeserializer.class)
+    private Long expectedArrival; // epoch millis
+    @JsonDeserialize(using = IsoTimestamps.EpochMillisDeserializer.class)
+    private Long timestamp; // epoch millis the prediction was made
     private String currentLocation;
+    @JsonDeserialize(using = StringInterner.Deserializer.class)
     private String towards;
 }
@@ -0,0 +1,16 @@
+package com.stationly.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CoalescingStats {
+    private long requests; // calls to coalesced endpoints
+    private long shared; // calls served by joining an identical in-flight request
+    private int inFlight; // distinct upstream requests currently open
+}
@@ -0,0 +1,20 @@
+package com.stationly.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConnectionPoolStats {
+    private int pools; // one per remote address
+    private int activeConnections; // acquired and in use
+    private int idleConnections;
+    private int allocatedConnections; // active + idle
+    private int pendingAcquires; // requests waiting for a connection
+    private int maxConnections;
+    private int maxPendingAcquires;
+}
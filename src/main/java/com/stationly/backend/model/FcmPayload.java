@@ -0,0 +1,15 @@
+package com.stationly.backend.model;
+
+/**
+ * A serialized, ready-to-send FCM data payload.
+ *
+ * @param topic             FCM topic, e.g. "Station_940GZZLUKSX"
+ * @param json              Final JSON payload, sent as the "payload" data field
+ * @param sizeBytes         UTF-8 size of {@code json}, exact
+ * @param fingerprint       Content hash excluding the last-updated time, for
+ *                          change detection between polls
+ * @param earliestEtaMillis First predicted arrival in the payload, epoch millis;
+ *                          {@code Long.MAX_VALUE} if there is none
+ */
+public record FcmPayload(String topic, String json, int sizeBytes, long fingerprint, long earliestEtaMillis) {
+}
@@ -0,0 +1,23 @@
+package com.stationly.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FcmPublishStats {
+    private String publisher; // push transport, see fcm.publisher
+    private int concurrencyWindow; // sends allowed in flight right now
+    private int maxConcurrencyWindow;
+    private int inFlight;
+    private long sent; // messages accepted by FCM
+    private long failed; // messages given up on
+    private long retries; // re-queued attempts after a retryable error
+    private Map<String, Long> errors; // FCM error code -> responses
+}
@@ -0,0 +1,19 @@
+package com.stationly.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HttpCacheStats {
+    private boolean enabled;
+    private int entries;
+    private long freshHits; // served without a TfL request
+    private long revalidated; // 304 Not Modified
+    private long stored; // full 200 responses written to disk
+    private long parsesSkipped; // decoded value reused from memory
+}
@@ -0,0 +1,18 @@
+package com.stationly.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemoCacheStats {
+    private int size; // entries held
+    private int maxSize; // entries held at most; misses beyond this are computed but not kept
+    private long hits;
+    private long misses;
+    private double hitRate; // hits / lookups, 0 before the first lookup
+}
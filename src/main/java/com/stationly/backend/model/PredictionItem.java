@@ -1,6 +1,8 @@
 package com.stationly.backend.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.stationly.backend.util.IsoTimestamps;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -18,6 +20,7 @@ public class PredictionItem {
     private String platformName;
 
     @JsonProperty("eta")
-    private String expectedArrival; // ISO-8601 string
+    @JsonSerialize(using = IsoTimestamps.InstantSerializer.class)
+    private Long expectedArrival; // epoch millis, written as ISO-8601
     private String displayName; // towards or destinationName
 }
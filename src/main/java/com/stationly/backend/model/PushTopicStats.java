@@ -0,0 +1,19 @@
+package com.stationly.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PushTopicStats {
+    private String topic;
+    private long delivered;
+    private long rejected;
+    private long bytes; // UTF-8 size of the delivered message data
+    private Long lastDeliveredAt; // epoch millis, null if nothing was delivered yet
+    private Long shortestGapMs; // closest two deliveries to this topic, null below two
+}
@@ -0,0 +1,38 @@
+package com.stationly.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateLimiterStats {
+    private int requestsPerMinute;
+    private int burst;
+    private int realtimeReserved; // tokens only real-time requests may use
+    private long permitsIssued;
+    private long permitsDelayed; // permits that had to wait
+    private long totalWaitMs;
+    private double averageWaitMs; // across delayed permits
+    private long maxWaitMs;
+    private int queueDepth; // callers currently waiting for a permit
+    private Map<String, LaneStats> lanes; // priority -> per-lane counters
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LaneStats {
+        private long admitted;
+        private long delayed;
+        private long totalWaitMs;
+        private double averageWaitMs;
+        private long maxWaitMs;
+        private int queueDepth;
+    }
+}
@@ -16,8 +16,11 @@ public class RefreshSummary {
     private LocalDateTime timestamp;
     private String status;
     private Integer arrivalsReceived;
+    private Integer duplicatesRemoved; // repeated vehicle rows reconciled away
     private Integer cacheKeysCreated;
     private Integer fcmTopicsPublished;
+    private Integer fcmTopicsSuppressed;
+    private Integer fcmTopicsDebounced; // changed but held back for the topic's minimum send interval
     private Long ttlSeconds;
     private Long processingTimeMs;
     private String message;
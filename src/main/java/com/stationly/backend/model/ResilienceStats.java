@@ -0,0 +1,35 @@
+package com.stationly.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResilienceStats {
+    private int maxRetries;
+    private boolean hedgingEnabled;
+    private Map<String, EndpointStats> endpoints; // endpoint family -> counters
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class EndpointStats {
+        private String circuitState; // CLOSED, OPEN or HALF_OPEN
+        private long calls; // upstream attempts, including retries and hedges
+        private long failures; // attempts that failed with a transient error
+        private long retries;
+        private long rejected; // calls short-circuited while the breaker was open
+        private long hedges; // hedged second requests issued
+        private long hedgesWon; // hedged requests that answered first
+        private int latencySamples;
+        private long p50LatencyMs; // time to first data
+        private long p99LatencyMs;
+    }
+}
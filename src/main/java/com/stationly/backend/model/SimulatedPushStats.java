@@ -0,0 +1,24 @@
+package com.stationly.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimulatedPushStats {
+    private long delivered;
+    private long rejected;
+    private long bytes;
+    private int inFlight;
+    private int peakInFlight; // most messages the stand-in was holding at once
+    private int topics;
+    private Map<String, Long> errors; // simulated error code -> responses
+    private List<PushTopicStats> busiestTopics; // most delivered first
+}
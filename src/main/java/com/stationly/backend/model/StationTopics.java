@@ -0,0 +1,20 @@
+package com.stationly.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StationTopics {
+    private String stationId;
+    private String stationTopic; // always Station_{stationId}; topic changes are announced here
+    private String scheme; // station, line or direction
+    private String pattern; // e.g. Station_{stationId}_{lineId}; ids upper-cased, other characters as ~
+    private List<String> topics; // FCM topics to subscribe to
+}
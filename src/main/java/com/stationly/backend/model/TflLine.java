@@ -0,0 +1,18 @@
+package com.stationly.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * Line as returned by TfL {@code /Line/Mode/{mode}} and
+ * {@code /Line/Mode/{modes}/Status}. {@code lineStatuses} is only populated by
+ * the status endpoint.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record TflLine(
+        String id,
+        String name,
+        String modeName,
+        List<TflLineStatus> lineStatuses) {
+}
@@ -0,0 +1,23 @@
+package com.stationly.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * Line with its route sections as returned by TfL {@code /Line/{lineId}/Route}.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record TflLineRoute(
+        String id,
+        String name,
+        String modeName,
+        List<RouteSection> routeSections) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record RouteSection(
+            String direction,
+            String destination,
+            String destinationName) {
+    }
+}
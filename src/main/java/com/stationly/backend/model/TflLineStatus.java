@@ -0,0 +1,12 @@
+package com.stationly.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * One entry of a TfL line's {@code lineStatuses}.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record TflLineStatus(
+        String statusSeverityDescription,
+        String reason) {
+}
@@ -0,0 +1,18 @@
+package com.stationly.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * Route sequence as returned by TfL {@code /Line/{lineId}/Route/Sequence/{direction}}.
+ * Only the ordered NaPTAN ids are decoded; stop point and crowding details are
+ * skipped by the parser.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record TflRouteSequence(List<OrderedLineRoute> orderedLineRoutes) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record OrderedLineRoute(List<String> naptanIds) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.stationly.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * StopPoint as returned by TfL {@code /Line/{lineId}/StopPoints}, reduced to the
+ * fields the station sync uses. Coordinates are boxed so a stop point without
+ * them reads as null rather than 0,0.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record TflStopPoint(
+        String naptanId,
+        String commonName,
+        Double lat,
+        Double lon,
+        String stopType,
+        String indicator,
+        String stopLetter) {
+}
@@ -0,0 +1,158 @@
+package com.stationly.backend.push;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.Message;
+import lombok.extern.slf4j.Slf4j;
+
+import jakarta.annotation.PostConstruct;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends through Firebase Cloud Messaging. Disabled, with a warning, when no
+ * service account is configured.
+ */
+@Slf4j
+public class FirebasePushPublisher implements PushPublisher {
+
+    private final String serviceAccountPath;
+    private final String databaseUrl;
+    private final int maxThreads;
+    private boolean fcmEnabled = false;
+
+    /**
+     * @param maxThreads Most threads the Firebase SDK may use; each HTTP call
+     *                   holds one, further sends queue for a free thread
+     */
+    public FirebasePushPublisher(String serviceAccountPath, String databaseUrl, int maxThreads) {
+        this.serviceAccountPath = serviceAccountPath;
+        this.databaseUrl = databaseUrl;
+        this.maxThreads = maxThreads;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        if (serviceAccountPath == null || serviceAccountPath.isEmpty()) {
+            log.warn("⚠️  FCM service account not configured. FCM notifications will be disabled.");
+            log.warn("💡 Set either FCM_SERVICE_ACCOUNT_JSON (for Lambda) or FCM_SERVICE_ACCOUNT_PATH (for local dev)");
+            return;
+        }
+
+        try (FileInputStream serviceAccount = new FileInputStream(serviceAccountPath)) {
+            FirebaseOptions options = FirebaseOptions.builder()
+                    .setCredentials(GoogleCredentials.fromStream(serviceAccount))
+                    .setDatabaseUrl(databaseUrl)
+                    .setThreadManager(new BoundedThreadManager(maxThreads))
+                    .build();
+
+            if (FirebaseApp.getApps().isEmpty()) {
+                FirebaseApp.initializeApp(options);
+            }
+            fcmEnabled = true;
+            log.info("✅ Firebase Cloud Messaging initialized successfully (from file: {})", serviceAccountPath);
+        } catch (IOException e) {
+            log.error("❌ Failed to initialize Firebase Cloud Messaging from file: {}", serviceAccountPath, e);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "firebase";
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return fcmEnabled;
+    }
+
+    @Override
+    public CompletableFuture<String> sendAsync(String topic, Map<String, String> data) {
+        ApiFuture<String> future = FirebaseMessaging.getInstance().sendAsync(Message.builder()
+                .setTopic(topic)
+                .putAllData(data)
+                .build());
+        CompletableFuture<String> result = new CompletableFuture<>();
+        ApiFutures.addCallback(future, new ApiFutureCallback<>() {
+            @Override
+            public void onSuccess(String messageId) {
+                result.complete(messageId);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                result.completeExceptionally(new PushRejectedException(errorCode(t), t.getMessage(), t));
+            }
+        }, Runnable::run);
+        return result;
+    }
+
+    private static String errorCode(Throwable t) {
+        if (t instanceof FirebaseMessagingException e) {
+            if (e.getMessagingErrorCode() != null) {
+                return e.getMessagingErrorCode().name();
+            }
+            if (e.getErrorCode() != null) {
+                return e.getErrorCode().name();
+            }
+        }
+        return "UNKNOWN";
+    }
+
+    /**
+     * Custom ThreadManager to restrict the number of threads created by Firebase
+     * SDK.
+     * The SDK blocks one of these threads per HTTP call, so a few threads carry
+     * the whole concurrency window; sends beyond them wait in the queue. Threads
+     * are started on demand and retired after 30s idle, so a quiet service holds
+     * none.
+     */
+    private static class BoundedThreadManager extends com.google.firebase.ThreadManager {
+        private final int maxThreads;
+
+        BoundedThreadManager(int maxThreads) {
+            this.maxThreads = maxThreads;
+        }
+
+        @Override
+        protected ExecutorService getExecutor(FirebaseApp app) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), r -> {
+                        Thread t = new Thread(r);
+                        t.setName("firebase-bounded-" + t.getId());
+                        t.setDaemon(true);
+                        return t;
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+
+        @Override
+        protected ThreadFactory getThreadFactory() {
+            return r -> {
+                Thread t = new Thread(r);
+                t.setName("firebase-daemon-" + t.getId());
+                t.setDaemon(true);
+                return t;
+            };
+        }
+
+        @Override
+        protected void releaseExecutor(FirebaseApp app, ExecutorService executor) {
+            executor.shutdown();
+        }
+    }
+}
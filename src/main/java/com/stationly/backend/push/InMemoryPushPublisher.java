@@ -0,0 +1,216 @@
+package com.stationly.backend.push;
+
+import com.stationly.backend.model.PushTopicStats;
+import com.stationly.backend.model.SimulatedPushStats;
+import lombok.extern.slf4j.Slf4j;
+
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Local stand-in for FCM, so the polling → transform → publish pipeline can be
+ * load tested without credentials or quota. Nothing leaves the process.
+ * <p>
+ * Every message is answered after {@code latency} plus up to {@code jitter}.
+ * Sends beyond {@code quotaPerSecond} within a one-second window fail with
+ * QUOTA_EXCEEDED, and {@code errorRate} of the remaining ones with INTERNAL,
+ * which exercises the concurrency window and retries in {@code FcmService}.
+ * Deliveries are counted per topic, see {@link #getStats(int)}.
+ */
+@Slf4j
+public class InMemoryPushPublisher implements PushPublisher {
+
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final double errorRate;
+    private final int quotaPerSecond;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService scheduler;
+
+    private final Map<String, TopicCounters> topics = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final AtomicLong messageIds = new AtomicLong();
+
+    private long quotaWindowStart;
+    private int quotaWindowSends;
+
+    /**
+     * @param latency        Fixed delay before each answer
+     * @param jitter         Random extra delay, up to this much
+     * @param errorRate      Fraction of sends failing with INTERNAL, 0 to 1
+     * @param quotaPerSecond Sends accepted per second; 0 for no quota
+     */
+    public InMemoryPushPublisher(Duration latency, Duration jitter, double errorRate, int quotaPerSecond) {
+        this(latency, jitter, errorRate, quotaPerSecond, System::currentTimeMillis);
+    }
+
+    InMemoryPushPublisher(Duration latency, Duration jitter, double errorRate, int quotaPerSecond,
+            LongSupplier clock) {
+        if (errorRate < 0 || errorRate > 1 || quotaPerSecond < 0) {
+            throw new IllegalArgumentException("Error rate must be within [0, 1] and quota >= 0");
+        }
+        this.latencyMillis = latency.toMillis();
+        this.jitterMillis = jitter.toMillis();
+        this.errorRate = errorRate;
+        this.quotaPerSecond = quotaPerSecond;
+        this.clock = clock;
+        this.quotaWindowStart = clock.getAsLong();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(2, r -> {
+            Thread t = new Thread(r);
+            t.setName("push-memory-" + t.getId());
+            t.setDaemon(true);
+            return t;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        this.scheduler = executor;
+        log.info("🧪 In-memory push publisher: {}ms +{}ms latency, {}% errors, quota {}", latencyMillis,
+                jitterMillis, errorRate * 100, quotaPerSecond > 0 ? quotaPerSecond + "/s" : "none");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public String getName() {
+        return "memory";
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<String> sendAsync(String topic, Map<String, String> data) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        int holding = inFlight.incrementAndGet();
+        peakInFlight.accumulateAndGet(holding, Math::max);
+        long delay = latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+        scheduler.schedule(() -> answer(topic, data, result), delay, TimeUnit.MILLISECONDS);
+        return result;
+    }
+
+    private void answer(String topic, Map<String, String> data, CompletableFuture<String> result) {
+        inFlight.decrementAndGet();
+        TopicCounters counters = topics.computeIfAbsent(topic, k -> new TopicCounters());
+        String code = !withinQuota() ? "QUOTA_EXCEEDED"
+                : errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate ? "INTERNAL"
+                : null;
+        if (code != null) {
+            rejected.increment();
+            counters.rejected.increment();
+            errors.computeIfAbsent(code, k -> new LongAdder()).increment();
+            result.completeExceptionally(new PushRejectedException(code, "Simulated " + code + " for " + topic));
+            return;
+        }
+
+        long size = 0;
+        for (Map.Entry<String, String> entry : data.entrySet()) {
+            size += entry.getKey().getBytes(StandardCharsets.UTF_8).length
+                    + entry.getValue().getBytes(StandardCharsets.UTF_8).length;
+        }
+        delivered.increment();
+        bytes.add(size);
+        counters.delivered(size, clock.getAsLong());
+        result.complete("memory/" + messageIds.incrementAndGet());
+    }
+
+    // Fixed one-second windows; sends over the quota do not count against it
+    private synchronized boolean withinQuota() {
+        if (quotaPerSecond == 0) {
+            return true;
+        }
+        long now = clock.getAsLong();
+        if (now - quotaWindowStart >= 1000) {
+            quotaWindowStart = now;
+            quotaWindowSends = 0;
+        }
+        if (quotaWindowSends >= quotaPerSecond) {
+            return false;
+        }
+        quotaWindowSends++;
+        return true;
+    }
+
+    /**
+     * @param limit Most topics to list
+     * @return Totals, simulated errors and the topics that received the most
+     *         messages
+     */
+    public SimulatedPushStats getStats(int limit) {
+        Map<String, Long> errorCounts = new TreeMap<>();
+        errors.forEach((code, count) -> errorCounts.put(code, count.sum()));
+        return SimulatedPushStats.builder()
+                .delivered(delivered.sum())
+                .rejected(rejected.sum())
+                .bytes(bytes.sum())
+                .inFlight(inFlight.get())
+                .peakInFlight(peakInFlight.get())
+                .topics(topics.size())
+                .errors(errorCounts)
+                .busiestTopics(topics.entrySet().stream()
+                        .map(entry -> entry.getValue().toStats(entry.getKey()))
+                        .sorted(Comparator.comparingLong(PushTopicStats::getDelivered).reversed()
+                                .thenComparing(PushTopicStats::getTopic))
+                        .limit(limit)
+                        .toList())
+                .build();
+    }
+
+    /**
+     * @return Deliveries to one topic, or null if nothing was sent to it
+     */
+    public PushTopicStats getTopicStats(String topic) {
+        TopicCounters counters = topics.get(topic);
+        return counters != null ? counters.toStats(topic) : null;
+    }
+
+    private static final class TopicCounters {
+        final LongAdder rejected = new LongAdder();
+        private long delivered;
+        private long bytes;
+        private long lastDeliveredAt = Long.MIN_VALUE;
+        private long shortestGap = Long.MAX_VALUE;
+
+        synchronized void delivered(long size, long now) {
+            if (delivered > 0) {
+                shortestGap = Math.min(shortestGap, now - lastDeliveredAt);
+            }
+            delivered++;
+            bytes += size;
+            lastDeliveredAt = now;
+        }
+
+        synchronized PushTopicStats toStats(String topic) {
+            return PushTopicStats.builder()
+                    .topic(topic)
+                    .delivered(delivered)
+                    .rejected(rejected.sum())
+                    .bytes(bytes)
+                    .lastDeliveredAt(delivered > 0 ? lastDeliveredAt : null)
+                    .shortestGapMs(delivered > 1 ? shortestGap : null)
+                    .build();
+        }
+    }
+}
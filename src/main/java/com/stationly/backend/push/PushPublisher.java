@@ -0,0 +1,36 @@
+package com.stationly.backend.push;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Transport that delivers data messages to push topics. {@code FcmService}
+ * owns batching, the concurrency window and retries; implementations only
+ * send one message.
+ * <p>
+ * Chosen with {@code fcm.publisher}: {@link FirebasePushPublisher} for real
+ * sends, {@link InMemoryPushPublisher} to load test the pipeline locally.
+ */
+public interface PushPublisher {
+
+    /**
+     * @return Short name reported in stats, e.g. "firebase"
+     */
+    String getName();
+
+    /**
+     * @return Whether messages go anywhere; false when the transport is not
+     *         configured, in which case nothing should be sent
+     */
+    boolean isEnabled();
+
+    /**
+     * Sends a data message without blocking.
+     *
+     * @param topic Topic name (e.g., "Station_940GZZLUOXC")
+     * @param data  Message data
+     * @return Completes with the message id, or exceptionally with a
+     *         {@link PushRejectedException} carrying the transport's error code
+     */
+    CompletableFuture<String> sendAsync(String topic, Map<String, String> data);
+}
@@ -0,0 +1,23 @@
+package com.stationly.backend.push;
+
+/**
+ * A push message the transport did not accept, with its FCM-style error code
+ * (e.g. QUOTA_EXCEEDED, UNAVAILABLE, INTERNAL; UNKNOWN if there was none).
+ */
+public class PushRejectedException extends RuntimeException {
+
+    private final String errorCode;
+
+    public PushRejectedException(String errorCode, String message) {
+        this(errorCode, message, null);
+    }
+
+    public PushRejectedException(String errorCode, String message, Throwable cause) {
+        super(message, cause);
+        this.errorCode = errorCode;
+    }
+
+    public String getErrorCode() {
+        return errorCode;
+    }
+}
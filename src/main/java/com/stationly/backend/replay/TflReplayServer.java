@@ -0,0 +1,222 @@
+package com.stationly.backend.replay;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.stationly.backend.client.TflResponseRecorder;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Offline stand-in for the TfL Unified API, serving responses captured by
+ * {@link TflResponseRecorder}. Point the application at it with
+ * {@code tfl.api.base-url=http://localhost:<port>} (and a high
+ * {@code tfl.rate-limit.requests-per-minute}) to load test the polling →
+ * transform → FCM pipeline without touching TfL.
+ * <p>
+ * Options (as {@code --name=value} arguments):
+ * <ul>
+ * <li>{@code dir} - recording directory (default {@code tfl-recordings})</li>
+ * <li>{@code port} - listen port (default 8089)</li>
+ * <li>{@code speed} - divides the recorded upstream latency; 0 drops it
+ * (default 1)</li>
+ * <li>{@code latency} / {@code jitter} - fixed and random extra delay per
+ * response, e.g. {@code 250ms} (default 0)</li>
+ * <li>{@code scale} - copies every arrival prediction this many times under
+ * synthetic station ids, to approximate bus-sized payloads (default 1)</li>
+ * </ul>
+ */
+@Slf4j
+public final class TflReplayServer {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path directory;
+    private final double speed;
+    private final Duration latency;
+    private final Duration jitter;
+    private final int scale;
+    private final Map<Path, Recording> recordings = new ConcurrentHashMap<>();
+
+    public TflReplayServer(Path directory, double speed, Duration latency, Duration jitter, int scale) {
+        if (speed < 0 || scale < 1) {
+            throw new IllegalArgumentException("Speed must be >= 0 and scale >= 1");
+        }
+        this.directory = directory.toAbsolutePath().normalize();
+        this.speed = speed;
+        this.latency = latency;
+        this.jitter = jitter;
+        this.scale = scale;
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = parseArgs(args);
+        TflReplayServer replay = new TflReplayServer(
+                Paths.get(options.getOrDefault("dir", "tfl-recordings")),
+                Double.parseDouble(options.getOrDefault("speed", "1")),
+                parseDuration(options.getOrDefault("latency", "0ms")),
+                parseDuration(options.getOrDefault("jitter", "0ms")),
+                Integer.parseInt(options.getOrDefault("scale", "1")));
+        DisposableServer server = replay.start(Integer.parseInt(options.getOrDefault("port", "8089")));
+        server.onDispose().block();
+    }
+
+    /**
+     * Binds the server; every GET is answered from the recording directory.
+     */
+    public DisposableServer start(int port) {
+        DisposableServer server = HttpServer.create()
+                .port(port)
+                .compress(true)
+                .route(routes -> routes.get("/**", this::handle))
+                .bindNow();
+        log.info("▶️ TfL replay server on port {} serving {} (speed {}x, latency {}, jitter {}, scale {}x)",
+                server.port(), directory, speed, latency, jitter, scale);
+        return server;
+    }
+
+    private Publisher<Void> handle(HttpServerRequest request, HttpServerResponse response) {
+        String uri = request.uri();
+        String query = uri.indexOf('?') >= 0 ? uri.substring(uri.indexOf('?') + 1) : null;
+        Path file = directory.resolve(TflResponseRecorder.recordingName(request.path(), query)).normalize();
+        if (!file.startsWith(directory)) {
+            return response.status(400).send();
+        }
+        Recording recording;
+        try {
+            recording = recordings.computeIfAbsent(file, this::load);
+        } catch (IllegalStateException e) {
+            log.warn("⚠️ Failed to load recording {}: {}", file, e.getMessage());
+            return response.status(500).send();
+        }
+        if (recording == null) {
+            log.warn("⚠️ No recording for {}", request.uri());
+            return response.status(404)
+                    .header("Content-Type", "application/json")
+                    .sendString(Mono.just("{\"message\":\"No recording for " + request.path() + "\"}"));
+        }
+        return response.header("Content-Type", "application/json")
+                .sendByteArray(Mono.delay(delayFor(recording)).thenReturn(recording.body));
+    }
+
+    private Duration delayFor(Recording recording) {
+        long millis = latency.toMillis();
+        if (speed > 0) {
+            millis += Math.round(recording.latencyMs / speed);
+        }
+        if (!jitter.isZero()) {
+            millis += ThreadLocalRandom.current().nextLong(jitter.toMillis() + 1);
+        }
+        return Duration.ofMillis(millis);
+    }
+
+    private Recording load(Path file) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            byte[] body = Files.readAllBytes(file);
+            String name = file.getFileName().toString();
+            if (scale > 1 && (name.equals("Arrivals.json") || name.startsWith("Arrivals@"))) {
+                body = scaleArrivals(body, scale);
+            }
+            long latencyMs = 0;
+            Path meta = TflResponseRecorder.metaFile(file);
+            if (Files.exists(meta)) {
+                Properties props = new Properties();
+                try (InputStream in = Files.newInputStream(meta)) {
+                    props.load(in);
+                }
+                latencyMs = Long.parseLong(props.getProperty("latencyMs", "0"));
+            }
+            log.info("📼 Loaded {} ({} bytes, recorded latency {}ms)", file, body.length, latencyMs);
+            return new Recording(body, latencyMs);
+        } catch (IOException | NumberFormatException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Repeats every prediction {@code scale} times. Copies get a suffixed
+     * prediction id, naptan id and station name, so they form distinct synthetic
+     * stations rather than duplicates of the recorded ones.
+     */
+    static byte[] scaleArrivals(byte[] body, int scale) throws IOException {
+        JsonNode root = MAPPER.readTree(body);
+        if (!root.isArray()) {
+            return body;
+        }
+        ArrayNode scaled = MAPPER.createArrayNode();
+        for (int copy = 0; copy < scale; copy++) {
+            for (JsonNode prediction : root) {
+                if (copy == 0 || !prediction.isObject()) {
+                    scaled.add(prediction);
+                    continue;
+                }
+                ObjectNode clone = ((ObjectNode) prediction).deepCopy();
+                suffix(clone, "id", copy);
+                suffix(clone, "naptanId", copy);
+                suffix(clone, "stationName", copy);
+                scaled.add(clone);
+            }
+        }
+        return MAPPER.writeValueAsString(scaled).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void suffix(ObjectNode node, String field, int copy) {
+        JsonNode value = node.get(field);
+        if (value != null && value.isTextual()) {
+            node.put(field, value.asText() + "-" + copy);
+        }
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int split = arg.indexOf('=');
+                options.put(arg.substring(2, split), arg.substring(split + 1));
+            }
+        }
+        return options;
+    }
+
+    private static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofMillis(Long.parseLong(value));
+    }
+
+    private static final class Recording {
+        final byte[] body;
+        final long latencyMs;
+
+        Recording(byte[] body, long latencyMs) {
+            this.body = body;
+            this.latencyMs = latencyMs;
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package com.stationly.backend.scheduler;
 
+import com.stationly.backend.model.Station;
+import com.stationly.backend.repository.DataRepository;
+import com.stationly.backend.service.DataTransformationService;
 import com.stationly.backend.service.TflPollingService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
@@ -13,6 +18,20 @@ import org.springframework.stereotype.Component;
 public class ArrivalPredictionScheduler {
 
     private final TflPollingService tflPollingService;
+    private final DataTransformationService transformationService;
+    private final DataRepository<Station, String> stationRepository;
+
+    /**
+     * Warm the transform caches from the station catalog before the first poll
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmTransformCaches() {
+        try {
+            transformationService.warmCaches(stationRepository.findAll());
+        } catch (Exception e) {
+            log.warn("⚠️ Could not warm transform caches from the station catalog: {}", e.getMessage());
+        }
+    }
 
     /**
      * Poll TfL API for arrival predictions on the scheduled interval
@@ -0,0 +1,139 @@
+package com.stationly.backend.scheduler;
+
+import com.stationly.backend.client.TflConnectionPoolMetrics;
+import com.stationly.backend.client.TflRateLimiter;
+import com.stationly.backend.client.TflResilience;
+import com.stationly.backend.model.ConnectionPoolStats;
+import com.stationly.backend.model.FcmPublishStats;
+import com.stationly.backend.model.RateLimiterStats;
+import com.stationly.backend.model.ResilienceStats;
+import com.stationly.backend.service.DataTransformationService;
+import com.stationly.backend.service.FcmService;
+import com.stationly.backend.service.MonitoringService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes in-process client metrics on a fixed interval, as one batch per
+ * run. Counters that only ever grow (permits, retries, hedges, FCM failures
+ * and errors) are sent as the increase since the previous run.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MetricsScheduler {
+
+    private final TflRateLimiter rateLimiter;
+    private final TflConnectionPoolMetrics connectionPoolMetrics;
+    private final TflResilience resilience;
+    private final DataTransformationService transformationService;
+    private final FcmService fcmService;
+    private final MonitoringService monitoringService;
+
+    // Last total seen per counter (name + dimensions), to send per-interval deltas
+    private final Map<String, Long> lastCounts = new HashMap<>();
+
+    /**
+     * Publish client-side TfL metrics on the scheduled interval
+     */
+    @Scheduled(fixedRateString = "${monitoring.metrics.interval:1m}", initialDelayString = "${monitoring.metrics.interval:1m}")
+    public void publishMetrics() {
+        List<MonitoringService.Gauge> gauges = new ArrayList<>();
+        publishRateLimiterMetrics(gauges);
+        publishConnectionPoolMetrics(gauges);
+        publishResilienceMetrics(gauges);
+        publishTransformCacheMetrics(gauges);
+        publishFcmMetrics(gauges);
+        monitoringService.recordGauges(gauges);
+        log.debug("Published {} client metrics", gauges.size());
+    }
+
+    private void publishRateLimiterMetrics(List<MonitoringService.Gauge> gauges) {
+        RateLimiterStats stats = rateLimiter.getStats();
+        Map<String, String> dimensions = Collections.singletonMap("component", "tfl_rate_limiter");
+
+        counter(gauges, "RateLimiterPermitsIssued", stats.getPermitsIssued(), dimensions);
+        counter(gauges, "RateLimiterPermitsDelayed", stats.getPermitsDelayed(), dimensions);
+        gauge(gauges, "RateLimiterAverageWait", stats.getAverageWaitMs(), "milliseconds", dimensions);
+        gauge(gauges, "RateLimiterMaxWait", stats.getMaxWaitMs(), "milliseconds", dimensions);
+        gauge(gauges, "RateLimiterQueueDepth", stats.getQueueDepth(), "count", dimensions);
+
+        stats.getLanes().forEach((priority, lane) -> {
+            Map<String, String> laneDimensions = new HashMap<>(dimensions);
+            laneDimensions.put("priority", priority);
+            counter(gauges, "RateLimiterLaneAdmitted", lane.getAdmitted(), laneDimensions);
+            counter(gauges, "RateLimiterLaneDelayed", lane.getDelayed(), laneDimensions);
+        });
+    }
+
+    private void publishConnectionPoolMetrics(List<MonitoringService.Gauge> gauges) {
+        ConnectionPoolStats stats = connectionPoolMetrics.getStats();
+        Map<String, String> dimensions = Collections.singletonMap("component", "tfl_connection_pool");
+
+        gauge(gauges, "HttpPoolActive", stats.getActiveConnections(), "count", dimensions);
+        gauge(gauges, "HttpPoolIdle", stats.getIdleConnections(), "count", dimensions);
+        gauge(gauges, "HttpPoolPendingAcquires", stats.getPendingAcquires(), "count", dimensions);
+    }
+
+    private void publishResilienceMetrics(List<MonitoringService.Gauge> gauges) {
+        ResilienceStats stats = resilience.getStats();
+        stats.getEndpoints().forEach((endpoint, endpointStats) -> {
+            Map<String, String> dimensions = new HashMap<>();
+            dimensions.put("component", "tfl_client");
+            dimensions.put("endpoint", endpoint);
+            gauge(gauges, "TflLatencyP50", endpointStats.getP50LatencyMs(), "milliseconds", dimensions);
+            gauge(gauges, "TflLatencyP99", endpointStats.getP99LatencyMs(), "milliseconds", dimensions);
+            counter(gauges, "TflRetries", endpointStats.getRetries(), dimensions);
+            counter(gauges, "TflHedges", endpointStats.getHedges(), dimensions);
+            gauge(gauges, "TflCircuitOpen", "CLOSED".equals(endpointStats.getCircuitState()) ? 0 : 1, "count",
+                    dimensions);
+        });
+    }
+
+    private void publishTransformCacheMetrics(List<MonitoringService.Gauge> gauges) {
+        transformationService.getMemoStats().forEach((cache, stats) -> {
+            Map<String, String> dimensions = new HashMap<>();
+            dimensions.put("component", "transform");
+            dimensions.put("cache", cache);
+            gauge(gauges, "TransformCacheHitRate", stats.getHitRate() * 100, "percent", dimensions);
+            gauge(gauges, "TransformCacheSize", stats.getSize(), "count", dimensions);
+        });
+    }
+
+    private void publishFcmMetrics(List<MonitoringService.Gauge> gauges) {
+        FcmPublishStats stats = fcmService.getPublishStats();
+        Map<String, String> dimensions = Collections.singletonMap("component", "fcm");
+
+        gauge(gauges, "FcmConcurrencyWindow", stats.getConcurrencyWindow(), "count", dimensions);
+        gauge(gauges, "FcmInFlight", stats.getInFlight(), "count", dimensions);
+        counter(gauges, "FcmRetries", stats.getRetries(), dimensions);
+        counter(gauges, "FcmFailed", stats.getFailed(), dimensions);
+
+        stats.getErrors().forEach((code, count) -> {
+            Map<String, String> errorDimensions = new HashMap<>(dimensions);
+            errorDimensions.put("errorCode", code);
+            counter(gauges, "FcmErrors", count, errorDimensions);
+        });
+    }
+
+    private static void gauge(List<MonitoringService.Gauge> gauges, String name, double value, String unit,
+            Map<String, String> dimensions) {
+        gauges.add(new MonitoringService.Gauge(name, value, unit, dimensions));
+    }
+
+    // Sends how much a cumulative counter grew since the last run
+    private void counter(List<MonitoringService.Gauge> gauges, String name, long total,
+            Map<String, String> dimensions) {
+        Long previous = lastCounts.put(name + dimensions, total);
+        long delta = previous != null ? total - previous : total;
+        gauges.add(new MonitoringService.Gauge(name, Math.max(0, delta), "count", dimensions));
+    }
+}
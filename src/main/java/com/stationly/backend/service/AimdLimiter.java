@@ -0,0 +1,120 @@
+package com.stationly.backend.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency window for FCM sends with additive increase, multiplicative
+ * decrease.
+ * <p>
+ * Every full window of successes widens the window by one, up to the maximum;
+ * a throttling response halves it, down to the minimum. Responses to sends
+ * that were already in flight when the window was cut tend to fail together,
+ * so after a cut further throttling is ignored for a cooldown period. Other
+ * failures leave the window as it is.
+ */
+final class AimdLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long cooldownNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private int limit;
+    private int inFlight;
+    private int successes;
+    private long lastDecrease;
+
+    AimdLimiter(int initialLimit, int minLimit, int maxLimit, long cooldown, TimeUnit unit) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.cooldownNanos = unit.toNanos(cooldown);
+        this.lastDecrease = System.nanoTime() - cooldownNanos;
+    }
+
+    /**
+     * Waits until the window has room, then takes a slot.
+     */
+    void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (inFlight >= limit) {
+                released.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void onSuccess() {
+        lock.lock();
+        try {
+            if (++successes >= limit) {
+                successes = 0;
+                limit = Math.min(maxLimit, limit + 1);
+            }
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void onThrottled() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            if (now - lastDecrease >= cooldownNanos) {
+                limit = Math.max(minLimit, limit / 2);
+                successes = 0;
+                lastDecrease = now;
+            }
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void onFailure() {
+        lock.lock();
+        try {
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called with the lock held
+    private void release() {
+        inFlight--;
+        released.signalAll();
+    }
+
+    int getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getMaxLimit() {
+        return maxLimit;
+    }
+}
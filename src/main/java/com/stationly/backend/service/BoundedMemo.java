@@ -0,0 +1,72 @@
+package com.stationly.backend.service;
+
+import com.stationly.backend.model.MemoCacheStats;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Remembers the results of a pure function over a small, stable key set
+ * (station ids, destination names). Once full it stops adding entries rather
+ * than evicting: keys seen first, typically warmed from the station catalog,
+ * stay cached and anything beyond is simply computed each time.
+ */
+final class BoundedMemo<K, V> {
+
+    private final Function<K, V> function;
+    private final int maxSize;
+    private final Map<K, V> values = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    BoundedMemo(Function<K, V> function, int maxSize) {
+        this.function = function;
+        this.maxSize = maxSize;
+    }
+
+    V get(K key) {
+        V value = values.get(key);
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+        misses.increment();
+        value = function.apply(key);
+        remember(key, value);
+        return value;
+    }
+
+    /**
+     * Computes and keeps a value ahead of its first lookup, without counting a
+     * miss.
+     */
+    void warm(K key) {
+        if (key != null && !values.containsKey(key)) {
+            remember(key, function.apply(key));
+        }
+    }
+
+    private void remember(K key, V value) {
+        if (value != null && values.size() < maxSize) {
+            values.putIfAbsent(key, value);
+        }
+    }
+
+    int size() {
+        return values.size();
+    }
+
+    MemoCacheStats getStats() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        return MemoCacheStats.builder()
+                .size(values.size())
+                .maxSize(maxSize)
+                .hits(hitCount)
+                .misses(lookups - hitCount)
+                .hitRate(lookups == 0 ? 0 : (double) hitCount / lookups)
+                .build();
+    }
+}
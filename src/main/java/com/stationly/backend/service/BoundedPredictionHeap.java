@@ -0,0 +1,145 @@
+package com.stationly.backend.service;
+
+import com.stationly.backend.model.PredictionItem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the {@code capacity} earliest predictions of one direction.
+ * <p>
+ * Array-backed binary heap whose root is the latest prediction kept, so a new
+ * arrival is either rejected with one comparison or replaces the root in
+ * O(log capacity). Ties on ETA are broken by insertion order, which makes the
+ * result identical to a stable sort followed by {@code limit(capacity)}.
+ * Predictions without an ETA sort last.
+ */
+final class BoundedPredictionHeap {
+
+    private final long[] etas;
+    private final long[] sequences;
+    private final PredictionItem[] items;
+    private int size;
+    private long nextSequence;
+
+    BoundedPredictionHeap(int capacity) {
+        this.etas = new long[capacity];
+        this.sequences = new long[capacity];
+        this.items = new PredictionItem[capacity];
+    }
+
+    /**
+     * @return Whether a prediction with this ETA would be kept if offered now
+     */
+    boolean accepts(long etaMillis) {
+        return size < items.length || etaMillis < etas[0];
+    }
+
+    /**
+     * Offers a prediction; callers should check {@link #accepts(long)} first to
+     * avoid building items that would be discarded.
+     */
+    void offer(long etaMillis, PredictionItem item) {
+        long sequence = nextSequence++;
+        if (size < items.length) {
+            int i = size++;
+            set(i, etaMillis, sequence, item);
+            siftUp(i);
+        } else if (etaMillis < etas[0]) {
+            set(0, etaMillis, sequence, item);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Takes a previously offered item back out, if it is still kept.
+     *
+     * @return Whether the item was found
+     */
+    boolean remove(PredictionItem item) {
+        for (int i = 0; i < size; i++) {
+            if (items[i] == item) {
+                int last = --size;
+                if (i != last) {
+                    set(i, etas[last], sequences[last], items[last]);
+                    siftDown(i);
+                    siftUp(i);
+                }
+                items[last] = null;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return The kept predictions ordered by ETA (earliest first)
+     */
+    List<PredictionItem> toSortedList() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> compare(a, b));
+        List<PredictionItem> sorted = new ArrayList<>(size);
+        for (int i : order) {
+            sorted.add(items[i]);
+        }
+        return sorted;
+    }
+
+    private void set(int i, long eta, long sequence, PredictionItem item) {
+        etas[i] = eta;
+        sequences[i] = sequence;
+        items[i] = item;
+    }
+
+    // Positive when slot a should be evicted before slot b (later ETA, then later arrival)
+    private int compare(int a, int b) {
+        int byEta = Long.compare(etas[a], etas[b]);
+        return byEta != 0 ? byEta : Long.compare(sequences[a], sequences[b]);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (compare(i, parent) <= 0) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                return;
+            }
+            int largest = left;
+            int right = left + 1;
+            if (right < size && compare(right, left) > 0) {
+                largest = right;
+            }
+            if (compare(largest, i) <= 0) {
+                return;
+            }
+            swap(i, largest);
+            i = largest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long eta = etas[a];
+        long sequence = sequences[a];
+        PredictionItem item = items[a];
+        set(a, etas[b], sequences[b], items[b]);
+        set(b, eta, sequence, item);
+    }
+}
@@ -0,0 +1,181 @@
+package com.stationly.backend.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.stationly.backend.model.DirectionPredictions;
+import com.stationly.backend.model.LineData;
+import com.stationly.backend.model.PredictionItem;
+import com.stationly.backend.model.StationPredictions;
+
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Writes a station in the compact wire format (schema version
+ * {@value #SCHEMA_VERSION}):
+ *
+ * <pre>
+ * {"v":2,"id":"940GZZLUKSX","name":"King's Cross St. Pancras","lut":"...","base":1767268800,
+ *  "dict":["940GZZLUCPK","Cockfosters","Eastbound - Platform 1",...],
+ *  "lines":{"piccadilly":{"name":"Piccadilly","dirs":{"inbound":[[60,0,1,2],[240,0,1,2]]}}}}
+ * </pre>
+ *
+ * Each prediction is {@code [etaOffset, destId, displayName, platform]}: the
+ * ETA in seconds after {@code base} (epoch seconds of the earliest prediction)
+ * and the strings as indexes into {@code dict}, in order of first use. Missing
+ * values are {@code null}. Clients tell the formats apart by {@code v}, which
+ * the standard format does not have.
+ */
+final class CompactPayloadEncoder {
+
+    static final int SCHEMA_VERSION = 2;
+
+    private final JsonFactory factory;
+
+    CompactPayloadEncoder(JsonFactory factory) {
+        this.factory = factory;
+    }
+
+    byte[] encode(StationPredictions station) throws IOException {
+        Layout layout = Layout.of(station);
+        ByteArrayBuilder out = new ByteArrayBuilder(1024);
+        try (JsonGenerator gen = factory.createGenerator(out)) {
+            gen.writeStartObject();
+            gen.writeNumberField("v", SCHEMA_VERSION);
+            gen.writeStringField("id", station.getStationId());
+            gen.writeStringField("name", station.getStationName());
+            gen.writeStringField("lut", station.getLastUpdatedTime());
+            gen.writeNumberField("base", layout.base);
+            gen.writeArrayFieldStart("dict");
+            for (String value : layout.dictionary.keySet()) {
+                gen.writeString(value);
+            }
+            gen.writeEndArray();
+
+            gen.writeObjectFieldStart("lines");
+            for (Map.Entry<String, LineData> line : station.getLines().entrySet()) {
+                gen.writeObjectFieldStart(line.getKey());
+                gen.writeStringField("name", line.getValue().getLineName());
+                gen.writeObjectFieldStart("dirs");
+                for (Map.Entry<String, DirectionPredictions> direction : line.getValue().getDirections().entrySet()) {
+                    gen.writeArrayFieldStart(direction.getKey());
+                    List<PredictionItem> predictions = direction.getValue().getPredictions();
+                    if (predictions != null) {
+                        for (PredictionItem item : predictions) {
+                            writeItem(gen, item, layout);
+                        }
+                    }
+                    gen.writeEndArray();
+                }
+                gen.writeEndObject();
+                gen.writeEndObject();
+            }
+            gen.writeEndObject();
+            gen.writeEndObject();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Size of each prediction as {@link #encode} writes it for this station,
+     * for {@link PayloadSizeAccountant}. Dropping predictions never makes the
+     * others bigger: the base stays with the earliest ETA, which is pruned last,
+     * and dictionary indexes can only get smaller.
+     */
+    ToIntFunction<PredictionItem> itemSizes(StationPredictions station) {
+        Layout layout = Layout.of(station);
+        return item -> {
+            Long offset = layout.offset(item);
+            return 5 // brackets and commas
+                    + (offset != null ? digits(offset) : 4)
+                    + indexSize(layout.index(item.getDestinationNaptanId()))
+                    + indexSize(layout.index(item.getDisplayName()))
+                    + indexSize(layout.index(item.getPlatformName()));
+        };
+    }
+
+    private static void writeItem(JsonGenerator gen, PredictionItem item, Layout layout) throws IOException {
+        gen.writeStartArray();
+        Long offset = layout.offset(item);
+        if (offset != null) {
+            gen.writeNumber(offset);
+        } else {
+            gen.writeNull();
+        }
+        writeIndex(gen, layout.index(item.getDestinationNaptanId()));
+        writeIndex(gen, layout.index(item.getDisplayName()));
+        writeIndex(gen, layout.index(item.getPlatformName()));
+        gen.writeEndArray();
+    }
+
+    private static void writeIndex(JsonGenerator gen, Integer index) throws IOException {
+        if (index != null) {
+            gen.writeNumber(index);
+        } else {
+            gen.writeNull();
+        }
+    }
+
+    private static int indexSize(Integer index) {
+        return index != null ? digits(index) : 4;
+    }
+
+    private static int digits(long value) {
+        return Long.toString(value).length();
+    }
+
+    private static Long epochSecond(PredictionItem item) {
+        return item.getExpectedArrival() != null ? Math.floorDiv(item.getExpectedArrival(), 1000L) : null;
+    }
+
+    private static final class Layout {
+        final Map<String, Integer> dictionary = new LinkedHashMap<>();
+        final Map<PredictionItem, Long> etas = new IdentityHashMap<>();
+        long base = Long.MAX_VALUE;
+
+        static Layout of(StationPredictions station) {
+            Layout layout = new Layout();
+            for (LineData line : station.getLines().values()) {
+                for (DirectionPredictions direction : line.getDirections().values()) {
+                    if (direction.getPredictions() == null) {
+                        continue;
+                    }
+                    for (PredictionItem item : direction.getPredictions()) {
+                        layout.add(item.getDestinationNaptanId());
+                        layout.add(item.getDisplayName());
+                        layout.add(item.getPlatformName());
+                        Long eta = epochSecond(item);
+                        if (eta != null) {
+                            layout.etas.put(item, eta);
+                            layout.base = Math.min(layout.base, eta);
+                        }
+                    }
+                }
+            }
+            if (layout.base == Long.MAX_VALUE) {
+                layout.base = 0;
+            }
+            return layout;
+        }
+
+        private void add(String value) {
+            if (value != null) {
+                dictionary.putIfAbsent(value, dictionary.size());
+            }
+        }
+
+        Integer index(String value) {
+            return value != null ? dictionary.get(value) : null;
+        }
+
+        Long offset(PredictionItem item) {
+            Long eta = etas.get(item);
+            return eta != null ? eta - base : null;
+        }
+    }
+}
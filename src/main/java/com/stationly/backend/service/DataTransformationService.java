@@ -1,154 +1,454 @@
 package com.stationly.backend.service;
 
 import com.stationly.backend.model.*;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
+import lombok.With;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.ToIntFunction;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
+/**
+ * Turns grouped arrivals into serialized per-station FCM payloads.
+ * <p>
+ * Stations are independent, so with {@code transform.parallelism} above 1 large
+ * cycles are built on a dedicated, bounded ForkJoin pool (never the common pool,
+ * the FCM executor or Firebase's threads). Results are written by index, so the
+ * output is identical to the sequential path, order included.
+ * <p>
+ * Payloads use the standard format unless {@code fcm.payload.format} is
+ * {@code compact}, see {@link CompactPayloadEncoder}.
+ * <p>
+ * A station over {@value #MAX_PAYLOAD_BYTES} bytes is pruned, unless
+ * {@code fcm.topic.sharding} is {@code line} or {@code direction}: it is then
+ * split into {@code Station_<id>_<lineId>} (or
+ * {@code Station_<id>_<lineId>_<direction>}) topics and stays split for the
+ * life of the process, so its clients are not moved back and forth. Clients
+ * look up the topics of a station with {@link #getStationTopics(String)}, and
+ * are told on the station topic when its shard topics change, see
+ * {@link #drainTopicMigrations()}.
+ * <p>
+ * Which stations are split is held in memory only. After a restart a station
+ * is split again once it is next over the limit, and until then is published
+ * on its station topic. Stations listed in {@code fcm.topic.sharded-stations}
+ * are split from startup, which keeps the scheme of known large stations
+ * stable across restarts.
+ */
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class DataTransformationService {
 
+    // Keeps the serialized station safely inside FCM's 4096 byte data limit
+    static final int MAX_PAYLOAD_BYTES = 4000;
+
+    // A few thousand stations and destinations across all modes; room to spare
+    static final int MEMO_MAX_ENTRIES = 16_384;
+
+    // Characters that are not FCM-topic friendly
+    private static final Pattern TOPIC_UNSAFE = Pattern.compile("[^A-Z0-9-_.~%]");
+
     private final ObjectMapper objectMapper;
+    private final CompactPayloadEncoder compactEncoder; // null for the standard format
+    private final TopicSharding sharding;
+    // Sharded station id -> every shard topic published for it
+    private final Map<String, Set<String>> shardTopics = new ConcurrentHashMap<>();
+    // Sharded stations whose topic list grew since subscribers were last told
+    private final Set<String> pendingMigrations = ConcurrentHashMap.newKeySet();
+    private final ForkJoinPool transformPool; // null when transforming sequentially
+    private final int parallelMinStations;
+    private final BoundedMemo<String, String> topicKeys = new BoundedMemo<>(
+            stationId -> "Station_" + normalize(stationId), MEMO_MAX_ENTRIES);
+    private final BoundedMemo<String, String> displayNames = new BoundedMemo<>(
+            DataTransformationService::cleanDisplayName, MEMO_MAX_ENTRIES);
+    private final BoundedMemo<String, String> topicSegments = new BoundedMemo<>(
+            DataTransformationService::normalize, MEMO_MAX_ENTRIES);
+
+    enum TopicSharding {
+        OFF, LINE, DIRECTION
+    }
+
+    /**
+     * How stations are transformed. {@link #DEFAULTS} is a sequential transform
+     * of standard payloads without topic sharding.
+     *
+     * @param parallelism         Worker threads for the transform; 0 for half the
+     *                            available processors, 1 for sequential
+     * @param parallelMinStations Smallest cycle worth fanning out
+     * @param payloadFormat       "standard" or "compact"
+     * @param topicSharding       "off", "line" or "direction"
+     * @param shardedStations     Comma-separated station ids to split from
+     *                            startup, whatever their size
+     */
+    @With
+    record Settings(int parallelism, int parallelMinStations, String payloadFormat, String topicSharding,
+            String shardedStations) {
+        static final Settings DEFAULTS = new Settings(1, Integer.MAX_VALUE, "standard", "off", "");
+    }
+
+    @Autowired
+    public DataTransformationService(ObjectMapper objectMapper,
+            @Value("${transform.parallelism:0}") int parallelism,
+            @Value("${transform.parallel.min-stations:200}") int parallelMinStations,
+            @Value("${fcm.payload.format:standard}") String payloadFormat,
+            @Value("${fcm.topic.sharding:off}") String topicSharding,
+            @Value("${fcm.topic.sharded-stations:}") String shardedStations) {
+        this(objectMapper, new Settings(parallelism, parallelMinStations, payloadFormat, topicSharding,
+                shardedStations));
+    }
+
+    DataTransformationService(ObjectMapper objectMapper, Settings settings) {
+        this.objectMapper = objectMapper;
+        this.sharding = switch (settings.topicSharding().trim().toLowerCase()) {
+            case "off" -> TopicSharding.OFF;
+            case "line" -> TopicSharding.LINE;
+            case "direction" -> TopicSharding.DIRECTION;
+            default -> throw new IllegalArgumentException("Unknown fcm.topic.sharding: " + settings.topicSharding());
+        };
+        if (sharding != TopicSharding.OFF) {
+            for (String stationId : settings.shardedStations().split(",")) {
+                if (!stationId.isBlank()) {
+                    shardTopics.put(stationId.trim(), ConcurrentHashMap.newKeySet());
+                }
+            }
+        }
+        this.compactEncoder = switch (settings.payloadFormat().trim().toLowerCase()) {
+            case "standard" -> null;
+            case "compact" -> new CompactPayloadEncoder(objectMapper.getFactory());
+            default -> throw new IllegalArgumentException("Unknown fcm.payload.format: " + settings.payloadFormat());
+        };
+        this.parallelMinStations = settings.parallelMinStations();
+        int parallelism = settings.parallelism();
+        int threads = parallelism > 0 ? parallelism : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.transformPool = threads > 1 ? new ForkJoinPool(threads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("transform-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false) : null;
+        log.info("🧮 Station transform: {}, {} payloads, topic sharding {}", transformPool != null
+                ? threads + " threads from " + settings.parallelMinStations() + " stations"
+                : "sequential", compactEncoder != null ? "compact" : "standard",
+                sharding.name().toLowerCase());
+    }
 
-    private String normalize(String input) {
+    @PreDestroy
+    public void shutdown() {
+        if (transformPool != null) {
+            transformPool.shutdown();
+        }
+    }
+
+    private static String normalize(String input) {
         if (input == null)
             return "";
         // Replace spaces and other non-FCM-friendly characters with ~
-        return input.toUpperCase().replaceAll("[^A-Z0-9-_.~%]", "~");
+        return TOPIC_UNSAFE.matcher(input.toUpperCase()).replaceAll("~");
+    }
+
+    private static String cleanDisplayName(String rawName) {
+        return rawName.replace(" Underground Station", "")
+                .replace(" Station", "")
+                .trim();
     }
 
     /**
-     * Transform TfL arrivals into grouped Station objects
-     * Key pattern: "Station_<stationId>"
-     * 
-     * @param arrivals Raw TfL arrival predictions
-     * @return Map with key pattern "Station_<stationId>" and StationPredictions as
-     *         value
+     * Fills the topic key and display name caches from the station catalog, so
+     * the first polling cycle after startup is already served from them.
      */
-    public Map<String, StationPredictions> transformToStationGroups(List<ArrivalPrediction> arrivals) {
-        Map<String, StationPredictions> stationGroups = new java.util.concurrent.ConcurrentHashMap<>();
-        String now = LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME);
-
-        // Group by StationId
-        Map<String, List<ArrivalPrediction>> byStation = arrivals.stream()
-                .filter(a -> a.getNaptanId() != null)
-                .collect(Collectors.groupingBy(ArrivalPrediction::getNaptanId));
+    public void warmCaches(Collection<Station> stations) {
+        for (Station station : stations) {
+            topicKeys.warm(station.getNaptanId());
+            displayNames.warm(station.getCommonName());
+        }
+        log.info("🔥 Warmed transform caches: {} topic keys, {} display names", topicKeys.size(),
+                displayNames.size());
+    }
 
-        // Process each station sequentially to avoid thread exhaustion
-        byStation.entrySet().forEach(entry -> {
-            String stationId = entry.getKey();
-            List<ArrivalPrediction> stationArrivals = entry.getValue();
-            String stationKey = "Station_" + normalize(stationId);
+    /**
+     * @return Hit rates of the topic key, display name and shard topic segment
+     *         caches
+     */
+    public Map<String, MemoCacheStats> getMemoStats() {
+        Map<String, MemoCacheStats> stats = new LinkedHashMap<>();
+        stats.put("topicKeys", topicKeys.getStats());
+        stats.put("displayNames", displayNames.getStats());
+        stats.put("topicSegments", topicSegments.getStats());
+        return stats;
+    }
 
-            // Create StationPredictions
-            StationPredictions station = StationPredictions.builder()
+    /**
+     * @param stationId Station naptan id
+     * @return The topics a client should subscribe to for this station: its
+     *         shard topics once it has been split, otherwise the station topic
+     */
+    public StationTopics getStationTopics(String stationId) {
+        String stationTopic = "Station_" + normalize(stationId);
+        Set<String> shards = shardTopics.get(stationId);
+        if (shards == null) {
+            return StationTopics.builder()
                     .stationId(stationId)
-                    .stationName(stationArrivals.get(0).getStationName())
-                    .lastUpdatedTime(now)
-                    .lines(new HashMap<>())
+                    .stationTopic(stationTopic)
+                    .scheme("station")
+                    .pattern("Station_{stationId}")
+                    .topics(List.of(stationTopic))
                     .build();
+        }
+        return StationTopics.builder()
+                .stationId(stationId)
+                .stationTopic(stationTopic)
+                .scheme(sharding.name().toLowerCase())
+                .pattern(sharding == TopicSharding.LINE
+                        ? "Station_{stationId}_{lineId}"
+                        : "Station_{stationId}_{lineId}_{direction}")
+                .topics(new ArrayList<>(new TreeSet<>(shards)))
+                .build();
+    }
 
-            // Group arrivals by LineId
-            Map<String, List<ArrivalPrediction>> byLine = stationArrivals.stream()
-                    .filter(a -> a.getLineId() != null)
-                    .collect(Collectors.groupingBy(ArrivalPrediction::getLineId));
-
-            byLine.forEach((lineId, lineArrivals) -> {
-                LineData lineData = station.getLines().computeIfAbsent(lineId, k -> LineData.builder()
-                        .lineId(lineId)
-                        .lineName(lineArrivals.get(0).getLineName())
-                        .directions(new HashMap<>())
-                        .build());
-
-                Map<String, List<ArrivalPrediction>> byDirection = lineArrivals.stream()
-                        .filter(a -> a.getDirection() != null)
-                        .collect(Collectors.groupingBy(ArrivalPrediction::getDirection));
-
-                byDirection.forEach((direction, directionArrivals) -> {
-                    List<PredictionItem> items = directionArrivals.stream()
-                            .map(this::toPredictionItem)
-                            .sorted(Comparator.comparing(PredictionItem::getExpectedArrival,
-                                    Comparator.nullsLast(Comparator.naturalOrder())))
-                            .limit(10) // Higher initial limit, pruning will handle safety
-                            .collect(Collectors.toList());
-
-                    if (!items.isEmpty()) {
-                        DirectionPredictions directionPredictions = DirectionPredictions.builder()
-                                .predictions(items)
-                                .build();
-                        lineData.getDirections().put(direction, directionPredictions);
-                    }
-                });
-            });
+    /**
+     * Returns the sharded stations whose topic list changed since the last
+     * call: every station the first time it is split, and again when a new line
+     * or direction adds a topic. Their subscribers should be told on the
+     * station topic; hand back the ones that could not be told with
+     * {@link #retryTopicMigrations(Collection)}.
+     */
+    public List<StationTopics> drainTopicMigrations() {
+        List<StationTopics> migrations = new ArrayList<>();
+        for (String stationId : pendingMigrations) {
+            if (pendingMigrations.remove(stationId)) {
+                migrations.add(getStationTopics(stationId));
+            }
+        }
+        return migrations;
+    }
 
-            // Dynamic Pruning to fit FCM 4KB limit
-            pruneToFitFCM(station);
-            stationGroups.put(stationKey, station);
-        });
+    /**
+     * @param stationIds Stations whose migration signal was not delivered
+     */
+    public void retryTopicMigrations(Collection<String> stationIds) {
+        pendingMigrations.addAll(stationIds);
+    }
 
-        log.debug("Transformed {} arrivals into {} station groups", arrivals.size(), stationGroups.size());
-        return stationGroups;
+    /**
+     * Creates an empty accumulator that arrivals can be streamed into as they are
+     * decoded. Finish with {@link #transformToPayloads(StationGroupAccumulator)}.
+     */
+    public StationGroupAccumulator newAccumulator() {
+        return new StationGroupAccumulator(this::toPredictionItem);
+    }
+
+    /**
+     * Transform TfL arrivals into ready-to-send station payloads
+     * Topic pattern: "Station_<stationId>"
+     * 
+     * @param arrivals Raw TfL arrival predictions
+     * @return One serialized payload per station
+     */
+    public List<FcmPayload> transformToPayloads(List<ArrivalPrediction> arrivals) {
+        StationGroupAccumulator accumulator = newAccumulator();
+        arrivals.forEach(accumulator::add);
+        return transformToPayloads(accumulator);
     }
 
     /**
-     * Dynamically prunes predictions from a station object until its serialized
-     * size
-     * is under 4000 bytes (to safely fit in FCM 4096 byte data limit).
+     * Builds the final station payloads from an accumulator. Each station is
+     * serialized here, once (twice only if it had to be pruned), and the bytes
+     * are handed to FCM as they are.
+     * Topic pattern: "Station_<stationId>"
+     * 
+     * @param accumulator Arrivals already grouped by station, line and direction
+     * @return One serialized payload per station, in accumulator order
      */
-    private void pruneToFitFCM(StationPredictions station) {
+    public List<FcmPayload> transformToPayloads(StationGroupAccumulator accumulator) {
+        List<Map.Entry<String, StationGroupAccumulator.StationSlot>> stations = new ArrayList<>(
+                accumulator.getStations().entrySet());
+        FcmPayload[][] results = new FcmPayload[stations.size()][];
+        String now = LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME);
+
+        if (transformPool != null && stations.size() >= parallelMinStations) {
+            transformPool.submit(() -> IntStream.range(0, results.length)
+                    .parallel()
+                    .forEach(i -> results[i] = transformStation(stations.get(i), now)))
+                    .join();
+        } else {
+            for (int i = 0; i < results.length; i++) {
+                results[i] = transformStation(stations.get(i), now);
+            }
+        }
+
+        List<FcmPayload> payloads = new ArrayList<>(results.length);
+        for (FcmPayload[] stationPayloads : results) {
+            Collections.addAll(payloads, stationPayloads);
+        }
+
+        log.debug("Transformed {} arrivals into {} station payloads", accumulator.getArrivalsReceived(),
+                payloads.size());
+        return payloads;
+    }
+
+    // One payload per station, one per shard for a sharded station, none if serialization failed
+    private FcmPayload[] transformStation(Map.Entry<String, StationGroupAccumulator.StationSlot> station,
+            String now) {
+        String stationId = station.getKey();
+        String topic = stationId != null ? topicKeys.get(stationId) : "Station_";
+        StationPredictions predictions = buildStation(stationId, station.getValue(), now);
         try {
-            byte[] bytes = objectMapper.writeValueAsBytes(station);
-            if (bytes.length <= 4000) {
-                return;
+            if (sharding == TopicSharding.OFF || stationId == null) {
+                return new FcmPayload[] { toPayload(topic, predictions, encode(predictions)) };
+            }
+            if (!shardTopics.containsKey(stationId)) {
+                byte[] bytes = encode(predictions);
+                if (bytes.length <= MAX_PAYLOAD_BYTES) {
+                    return new FcmPayload[] { toPayload(topic, predictions, bytes) };
+                }
+                log.info("🔀 Station {} exceeds {} bytes ({}). Splitting into {} topics...",
+                        predictions.getStationName(), MAX_PAYLOAD_BYTES, bytes.length,
+                        sharding.name().toLowerCase());
             }
+            return shard(stationId, topic, predictions);
+        } catch (Exception e) {
+            log.warn("Failed to serialize station {}: {}", predictions.getStationName(), e.getMessage());
+            return new FcmPayload[0];
+        }
+    }
 
-            log.info("⚠️ Station {} exceeds 4000 bytes ({}). Pruning predictions...",
-                    station.getStationName(), bytes.length);
-
-            // Pruning strategy: Repeatedly remove the latest prediction from the direction
-            // with the most total predictions until we are under the limit.
-            while (bytes.length > 4000) {
-                PredictionItem furthestPrediction = null;
-                DirectionPredictions targetGroup = null;
-
-                // Find the prediction furthest in time across all lines and directions
-                for (LineData line : station.getLines().values()) {
-                    for (DirectionPredictions dp : line.getDirections().values()) {
-                        if (dp.getPredictions() != null && !dp.getPredictions().isEmpty()) {
-                            PredictionItem last = dp.getPredictions().get(dp.getPredictions().size() - 1);
-                            if (furthestPrediction == null ||
-                                    (last.getExpectedArrival() != null
-                                            && furthestPrediction.getExpectedArrival() != null &&
-                                            last.getExpectedArrival()
-                                                    .compareTo(furthestPrediction.getExpectedArrival()) > 0)) {
-                                furthestPrediction = last;
-                                targetGroup = dp;
-                            }
-                        }
-                    }
+    /**
+     * Splits a station into one payload per line, or per line and direction.
+     * Each shard carries the station id, name and lut, and is pruned on its own
+     * in the unlikely case it is still too big.
+     */
+    private FcmPayload[] shard(String stationId, String stationTopic, StationPredictions station)
+            throws IOException {
+        Set<String> topics = shardTopics.computeIfAbsent(stationId, k -> ConcurrentHashMap.newKeySet());
+        List<FcmPayload> shards = new ArrayList<>();
+        for (LineData line : station.getLines().values()) {
+            String lineTopic = stationTopic + '_' + topicSegments.get(line.getLineId());
+            if (sharding == TopicSharding.LINE) {
+                shards.add(shardPayload(topics, lineTopic, station, line));
+                continue;
+            }
+            for (Map.Entry<String, DirectionPredictions> direction : line.getDirections().entrySet()) {
+                LineData lineDirection = LineData.builder()
+                        .lineId(line.getLineId())
+                        .lineName(line.getLineName())
+                        .directions(new HashMap<>(Map.of(direction.getKey(), direction.getValue())))
+                        .build();
+                shards.add(shardPayload(topics, lineTopic + '_' + topicSegments.get(direction.getKey()), station,
+                        lineDirection));
+            }
+        }
+        return shards.toArray(new FcmPayload[0]);
+    }
+
+    private FcmPayload shardPayload(Set<String> topics, String topic, StationPredictions station, LineData line)
+            throws IOException {
+        if (topics.add(topic)) {
+            pendingMigrations.add(station.getStationId());
+        }
+        StationPredictions shard = StationPredictions.builder()
+                .stationId(station.getStationId())
+                .stationName(station.getStationName())
+                .lastUpdatedTime(station.getLastUpdatedTime())
+                .lines(new HashMap<>(Map.of(line.getLineId(), line)))
+                .build();
+        return toPayload(topic, shard, encode(shard));
+    }
+
+    private StationPredictions buildStation(String stationId, StationGroupAccumulator.StationSlot stationSlot,
+            String now) {
+        StationPredictions station = StationPredictions.builder()
+                .stationId(stationId)
+                .stationName(stationSlot.stationName)
+                .lastUpdatedTime(now)
+                .lines(new HashMap<>())
+                .build();
+
+        stationSlot.lines.forEach((lineId, lineSlot) -> {
+            LineData lineData = LineData.builder()
+                    .lineId(lineId)
+                    .lineName(lineSlot.lineName)
+                    .directions(new HashMap<>())
+                    .build();
+            station.getLines().put(lineId, lineData);
+
+            // Already bounded to the earliest predictions; pruning will handle safety
+            lineSlot.directions.forEach((direction, heap) -> {
+                if (!heap.isEmpty()) {
+                    DirectionPredictions directionPredictions = DirectionPredictions.builder()
+                            .predictions(heap.toSortedList())
+                            .build();
+                    lineData.getDirections().put(direction, directionPredictions);
                 }
+            });
+        });
+        return station;
+    }
+
+    /**
+     * Turns a serialized station into its payload, pruning the furthest
+     * predictions first if it does not fit under {@value #MAX_PAYLOAD_BYTES}
+     * bytes (to safely fit in FCM 4096 byte data limit).
+     * <p>
+     * Only when the station is too big are the individual predictions measured;
+     * {@link PayloadSizeAccountant} then picks every prediction to drop in a
+     * single pass and the pruned station is serialized once more for the final
+     * payload.
+     *
+     * @param bytes The station already serialized once
+     */
+    private FcmPayload toPayload(String topic, StationPredictions station, byte[] bytes) throws IOException {
+        if (bytes.length > MAX_PAYLOAD_BYTES) {
+            log.info("⚠️ Station {} exceeds {} bytes ({}). Pruning predictions...",
+                    station.getStationName(), MAX_PAYLOAD_BYTES, bytes.length);
+
+            ToIntFunction<PredictionItem> itemSize = compactEncoder != null
+                    ? compactEncoder.itemSizes(station)
+                    : this::serializedSize;
+            new PayloadSizeAccountant(itemSize).prune(station, bytes.length, MAX_PAYLOAD_BYTES);
+            bytes = encode(station);
 
-                if (targetGroup != null && furthestPrediction != null) {
-                    targetGroup.getPredictions().remove(furthestPrediction);
-                    bytes = objectMapper.writeValueAsBytes(station);
-                } else {
-                    // Cannot prune further
-                    break;
+            log.info("✂️ Pruned station {} to {} bytes", station.getStationName(), bytes.length);
+        }
+        return new FcmPayload(topic, new String(bytes, StandardCharsets.UTF_8), bytes.length,
+                PayloadFingerprint.of(station), earliestEta(station));
+    }
+
+    private static long earliestEta(StationPredictions station) {
+        long earliest = Long.MAX_VALUE;
+        for (LineData line : station.getLines().values()) {
+            for (DirectionPredictions direction : line.getDirections().values()) {
+                // Sorted earliest first
+                List<PredictionItem> predictions = direction.getPredictions();
+                if (predictions != null && !predictions.isEmpty() && predictions.get(0).getExpectedArrival() != null) {
+                    earliest = Math.min(earliest, predictions.get(0).getExpectedArrival());
                 }
             }
+        }
+        return earliest;
+    }
 
-            log.info("✂️ Pruned station {} to {} bytes", station.getStationName(), bytes.length);
+    private byte[] encode(StationPredictions station) throws IOException {
+        return compactEncoder != null ? compactEncoder.encode(station) : objectMapper.writeValueAsBytes(station);
+    }
 
-        } catch (Exception e) {
-            log.warn("Failed to prune station {}: {}", station.getStationName(), e.getMessage());
+    private int serializedSize(PredictionItem item) {
+        try {
+            return objectMapper.writeValueAsBytes(item).length;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
         }
     }
 
@@ -157,19 +457,11 @@ public class DataTransformationService {
                 ? arrival.getTowards()
                 : arrival.getDestinationName();
 
-        if (rawName != null) {
-            rawName = rawName.replace(" Underground Station", "")
-                    .replace(" Station", "")
-                    .trim();
-        }
-
         return PredictionItem.builder()
                 .destinationNaptanId(arrival.getDestinationNaptanId())
                 .platformName(arrival.getPlatformName())
-                .expectedArrival(arrival.getExpectedArrival() != null
-                        ? arrival.getExpectedArrival().format(DateTimeFormatter.ISO_INSTANT)
-                        : null)
-                .displayName(rawName)
+                .expectedArrival(arrival.getExpectedArrival())
+                .displayName(rawName != null ? displayNames.get(rawName) : null)
                 .build();
     }
 }
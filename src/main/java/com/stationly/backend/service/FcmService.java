@@ -1,127 +1,82 @@
 package com.stationly.backend.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.auth.oauth2.GoogleCredentials;
-import com.google.firebase.FirebaseApp;
-import com.google.firebase.FirebaseOptions;
-import com.google.firebase.messaging.*;
+import com.stationly.backend.model.FcmPayload;
+import com.stationly.backend.model.FcmPublishStats;
+import com.stationly.backend.push.PushPublisher;
+import com.stationly.backend.push.PushRejectedException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import jakarta.annotation.PostConstruct;
-import java.io.ByteArrayInputStream;
-import java.io.FileInputStream;
-import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Publishes station payloads to push topics through the configured
+ * {@link PushPublisher}, with an adaptive concurrency window and retries.
+ */
 @Service
 @Slf4j
 public class FcmService {
 
-    @Value("${fcm.service-account-path}")
-    private String serviceAccountPath;
-
-    @Value("${firebase.database-url:}")
-    private String databaseUrl;
-
     private final ObjectMapper objectMapper;
-    private boolean fcmEnabled = false;
-
-    // Shared executor for FCM batch operations to prevent thread exhaustion
-    private final java.util.concurrent.ExecutorService fcmExecutor = java.util.concurrent.Executors
-            .newFixedThreadPool(10);
-
-    public FcmService(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
-    }
-
-    @PostConstruct
-    public void initialize() {
-        // Check if JSON string is provided (Lambda/environment variable)
-        if (serviceAccountPath != null && !serviceAccountPath.isEmpty()) {
-            try {
-                FileInputStream serviceAccount = new FileInputStream(serviceAccountPath);
-                FirebaseOptions options = FirebaseOptions.builder()
-                        .setCredentials(GoogleCredentials.fromStream(serviceAccount))
-                        .setDatabaseUrl(databaseUrl)
-                        .setThreadManager(new BoundedThreadManager())
-                        .build();
-
-                if (FirebaseApp.getApps().isEmpty()) {
-                    FirebaseApp.initializeApp(options);
-                }
-                fcmEnabled = true;
-                log.info("✅ Firebase Cloud Messaging initialized successfully (from JSON string)");
-                return;
-            } catch (IOException e) {
-                log.error("❌ Failed to initialize Firebase Cloud Messaging from JSON string", e);
-                return;
-            }
-        }
+    private final PushPublisher publisher;
 
-        // Fallback to file path (local development)
-        if (serviceAccountPath == null || serviceAccountPath.isEmpty()) {
-            log.warn("⚠️  FCM service account not configured. FCM notifications will be disabled.");
-            log.warn("💡 Set either FCM_SERVICE_ACCOUNT_JSON (for Lambda) or FCM_SERVICE_ACCOUNT_PATH (for local dev)");
-            return;
-        }
-
-        try {
-            FileInputStream serviceAccount = new FileInputStream(serviceAccountPath);
-            FirebaseOptions options = FirebaseOptions.builder()
-                    .setCredentials(GoogleCredentials.fromStream(serviceAccount))
-                    .setDatabaseUrl(databaseUrl)
-                    .setThreadManager(new BoundedThreadManager())
-                    .build();
+    // Responses that mean FCM wants us to slow down, and the ones worth retrying
+    private static final Set<String> THROTTLING_CODES = Set.of("QUOTA_EXCEEDED", "UNAVAILABLE",
+            "RESOURCE_EXHAUSTED");
+    private static final Set<String> RETRYABLE_CODES = Set.of("QUOTA_EXCEEDED", "UNAVAILABLE",
+            "RESOURCE_EXHAUSTED", "INTERNAL");
 
-            if (FirebaseApp.getApps().isEmpty()) {
-                FirebaseApp.initializeApp(options);
-            }
-            fcmEnabled = true;
-            log.info("✅ Firebase Cloud Messaging initialized successfully (from file: {})", serviceAccountPath);
-        } catch (IOException e) {
-            log.error("❌ Failed to initialize Firebase Cloud Messaging from file: {}", serviceAccountPath, e);
-        }
-    }
+    // Messages sent but not yet answered by FCM, across all callers
+    private final AimdLimiter limiter;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final LongAdder sentCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder retryCount = new LongAdder();
+    private final Map<String, LongAdder> errorCounts = new ConcurrentHashMap<>();
 
     /**
-     * Custom ThreadManager to restrict the number of threads created by Firebase
-     * SDK.
-     * Prevents "firebase-default-xx" thread explosion.
+     * @param publisher        Transport the messages are handed to
+     * @param maxInFlight      Largest concurrency window
+     * @param initialInFlight  Window to start from
+     * @param minInFlight      Smallest window throttling can shrink it to
+     * @param throttleCooldown Time after a cut during which further throttling
+     *                         does not shrink the window again
+     * @param maxAttempts      Sends per message, including the first
+     * @param retryBackoff     Delay before the first retry, doubled after each
      */
-    private static class BoundedThreadManager extends com.google.firebase.ThreadManager {
-        @Override
-        protected java.util.concurrent.ExecutorService getExecutor(com.google.firebase.FirebaseApp app) {
-            // User requested 800 threads for high-throughput prediction sync
-            return java.util.concurrent.Executors.newFixedThreadPool(800, r -> {
-                Thread t = new Thread(r);
-                t.setName("firebase-bounded-" + t.getId());
-                t.setDaemon(true);
-                return t;
-            });
-        }
-
-        @Override
-        protected java.util.concurrent.ThreadFactory getThreadFactory() {
-            return r -> {
-                Thread t = new Thread(r);
-                t.setName("firebase-daemon-" + t.getId());
-                t.setDaemon(true);
-                return t;
-            };
-        }
-
-        @Override
-        protected void releaseExecutor(com.google.firebase.FirebaseApp app,
-                java.util.concurrent.ExecutorService executor) {
-            executor.shutdown();
-        }
+    public FcmService(ObjectMapper objectMapper, PushPublisher publisher,
+            @Value("${fcm.publish.max-in-flight:200}") int maxInFlight,
+            @Value("${fcm.publish.initial-in-flight:50}") int initialInFlight,
+            @Value("${fcm.publish.min-in-flight:4}") int minInFlight,
+            @Value("${fcm.publish.throttle-cooldown:1s}") Duration throttleCooldown,
+            @Value("${fcm.publish.max-attempts:3}") int maxAttempts,
+            @Value("${fcm.publish.retry-backoff:500ms}") Duration retryBackoff) {
+        this.objectMapper = objectMapper;
+        this.publisher = publisher;
+        this.limiter = new AimdLimiter(initialInFlight, minInFlight, maxInFlight, throttleCooldown.toMillis(),
+                TimeUnit.MILLISECONDS);
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMillis = retryBackoff.toMillis();
     }
 
     /**
@@ -131,7 +86,7 @@ public class FcmService {
      * @param payload Data to send
      */
     public void publishToTopic(String topic, Object payload) {
-        if (!fcmEnabled) {
+        if (!publisher.isEnabled()) {
             log.debug("FCM is disabled. Skipping notification for topic: {}", topic);
             return;
         }
@@ -143,99 +98,187 @@ public class FcmService {
             String jsonPayload = objectMapper.writeValueAsString(payload);
             byte[] payloadBytes = jsonPayload.getBytes(StandardCharsets.UTF_8);
 
-            if (payloadBytes.length > 4000) {
+            if (payloadBytes.length > DataTransformationService.MAX_PAYLOAD_BYTES) {
                 log.error("❌ FCM payload for topic {} is too big ({} bytes). Skipping send.",
                         topic, payloadBytes.length);
                 return;
             }
 
-            Message message = Message.builder()
-                    .setTopic(topic)
-                    .putData("payload", jsonPayload)
-                    .build();
-
-            String response = FirebaseMessaging.getInstance().send(message);
+            String response = publisher.sendAsync(topic, Map.of("payload", jsonPayload)).get();
             log.debug("Successfully sent FCM message to topic {}: {}", topic, response);
-        } catch (FirebaseMessagingException e) {
-            log.error("Failed to send FCM message to topic: {}", topic, e);
+        } catch (ExecutionException e) {
+            log.error("Failed to send FCM message to topic: {}", topic, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while sending FCM message to topic: {}", topic);
         } catch (Exception e) {
             log.error("Error preparing FCM message for topic: {}", topic, e);
         }
     }
 
     /**
-     * Publish multiple messages to FCM topics in batch
+     * Publish pre-serialized payloads to their FCM topics. Payloads are sent as
+     * they are; nothing is serialized again here.
+     * <p>
+     * Each message is sent asynchronously and holds a slot of the adaptive
+     * concurrency window ({@link AimdLimiter}) until FCM answers. When the window
+     * is full the calling thread waits, which is the backpressure on the polling
+     * cycle. Messages failing with a retryable error are re-queued with their
+     * topic and re-sent once their jittered backoff has elapsed, up to
+     * {@code fcm.publish.max-attempts}; each retry waits out its own backoff, so
+     * retries due at the same time go out together. Returns once every message
+     * has been delivered or given up on.
      * 
-     * @param topicPayloads Map of topic name to payload object
+     * @param payloads Ready-to-send payloads, one per topic
+     * @return Topics that were not delivered (too big, rejected or out of retries)
      */
-    public void publishAll(Map<String, Object> topicPayloads) {
-        if (!fcmEnabled || topicPayloads == null || topicPayloads.isEmpty()) {
-            return;
+    public List<String> publishAll(Collection<FcmPayload> payloads) {
+        if (!publisher.isEnabled() || payloads == null || payloads.isEmpty()) {
+            return List.of();
         }
 
-        log.info("🚀 Preparing to send {} FCM topic updates...", topicPayloads.size());
+        log.info("🚀 Preparing to send {} FCM topic updates (concurrency window {})...", payloads.size(),
+                limiter.getLimit());
         long start = System.currentTimeMillis();
+        PublishRun run = new PublishRun();
+        for (FcmPayload payload : payloads) {
+            run.pending.add(payload.topic());
+        }
 
         try {
-            List<com.google.firebase.messaging.Message> messages = topicPayloads.entrySet().stream()
-                    .map(entry -> {
-                        try {
-                            String jsonPayload = objectMapper.writeValueAsString(entry.getValue());
-                            return com.google.firebase.messaging.Message.builder()
-                                    .setTopic(entry.getKey())
-                                    .putData("payload", jsonPayload)
-                                    .build();
-                        } catch (Exception e) {
-                            log.error("❌ Error creating FCM message for topic: {}", entry.getKey(), e);
-                            return null;
-                        }
-                    })
-                    .filter(Objects::nonNull)
-                    .toList();
+            for (FcmPayload payload : payloads) {
+                if (payload.sizeBytes() > DataTransformationService.MAX_PAYLOAD_BYTES) {
+                    log.error("❌ FCM payload for topic {} is too big ({} bytes). Skipping send.",
+                            payload.topic(), payload.sizeBytes());
+                    run.fail(payload.topic());
+                    continue;
+                }
+                // Retries that are due go ahead of new messages
+                for (Delivery retry; (retry = run.retries.poll()) != null;) {
+                    submit(run, retry);
+                }
+                submit(run, new Delivery(payload, 1, 0));
+            }
+            while (!run.pending.isEmpty()) {
+                // Only returns retries whose backoff has elapsed
+                Delivery retry = run.retries.poll(100, TimeUnit.MILLISECONDS);
+                if (retry != null) {
+                    submit(run, retry);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("⚠️ FCM publishing interrupted; {} unanswered topics are left for the next cycle",
+                    run.pending.size());
+            run.failed.addAll(run.pending);
+        }
 
-            // Firebase Limit: sendEachAsync supports many messages, but it's good to batch
-            // them
-            // into chunks of 500 for optimal processing and to stay under concurrent fanout
-            // limits.
-            int batchSize = 500;
-            List<List<com.google.firebase.messaging.Message>> batches = new ArrayList<>();
-            for (int i = 0; i < messages.size(); i += batchSize) {
-                batches.add(messages.subList(i, Math.min(i + batchSize, messages.size())));
+        long duration = System.currentTimeMillis() - start;
+        long delivered = payloads.size() - run.failed.size();
+        log.info("✅ Finished sending FCM messages. Total: {}, Success: {}, Retries: {}, Window: {}, Time: {}ms",
+                payloads.size(), delivered, run.retryCount.get(), limiter.getLimit(), duration);
+        return new ArrayList<>(run.failed);
+    }
+
+    private void submit(PublishRun run, Delivery delivery) throws InterruptedException {
+        String topic = delivery.payload.topic();
+        limiter.acquire();
+        CompletableFuture<String> future;
+        try {
+            future = publisher.sendAsync(topic, Map.of("payload", delivery.payload.json()));
+        } catch (RuntimeException e) {
+            log.error("❌ Failed to submit FCM message for topic: {}", topic, e);
+            limiter.onFailure();
+            failedCount.increment();
+            run.fail(topic);
+            return;
+        }
+        future.whenComplete((messageId, t) -> {
+            if (t == null) {
+                limiter.onSuccess();
+                sentCount.increment();
+                run.pending.remove(topic);
+                return;
             }
 
-            log.info("📦 Partitioned into {} batches of up to {}.", batches.size(), batchSize);
+            String code = errorCode(t);
+            errorCounts.computeIfAbsent(code, k -> new LongAdder()).increment();
+            if (THROTTLING_CODES.contains(code)) {
+                limiter.onThrottled();
+            } else {
+                limiter.onFailure();
+            }
+            if (RETRYABLE_CODES.contains(code) && delivery.attempt < maxAttempts) {
+                retryCount.increment();
+                run.retryCount.incrementAndGet();
+                run.retries.add(delivery.retry(retryBackoffMillis));
+            } else {
+                log.debug("FCM send to topic {} failed after {} attempts: {} {}", topic, delivery.attempt,
+                        code, t.getMessage());
+                failedCount.increment();
+                run.fail(topic);
+            }
+        });
+    }
 
-            // Send batches in parallel using shared thread pool
-            try {
-                List<CompletableFuture<com.google.firebase.messaging.BatchResponse>> batchFutures = new ArrayList<>();
-                for (List<com.google.firebase.messaging.Message> batch : batches) {
-                    batchFutures.add(CompletableFuture.supplyAsync(() -> {
-                        try {
-                            return FirebaseMessaging.getInstance().sendEach(batch);
-                        } catch (Exception e) {
-                            log.error("❌ Batch send failed", e);
-                            return null;
-                        }
-                    }, fcmExecutor));
-                }
+    private static String errorCode(Throwable t) {
+        Throwable cause = (t instanceof CompletionException || t instanceof ExecutionException)
+                && t.getCause() != null
+                        ? t.getCause()
+                        : t;
+        return cause instanceof PushRejectedException e && e.getErrorCode() != null
+                ? e.getErrorCode()
+                : "UNKNOWN";
+    }
 
-                long successCount = 0;
-                for (CompletableFuture<com.google.firebase.messaging.BatchResponse> future : batchFutures) {
-                    com.google.firebase.messaging.BatchResponse response = future.join();
-                    if (response != null) {
-                        successCount += response.getSuccessCount();
-                    }
-                }
+    /**
+     * @return Transport, concurrency window, in-flight messages and
+     *         per-error-code counts
+     */
+    public FcmPublishStats getPublishStats() {
+        Map<String, Long> errors = new TreeMap<>();
+        errorCounts.forEach((code, count) -> errors.put(code, count.sum()));
+        return FcmPublishStats.builder()
+                .publisher(publisher.getName())
+                .concurrencyWindow(limiter.getLimit())
+                .maxConcurrencyWindow(limiter.getMaxLimit())
+                .inFlight(limiter.getInFlight())
+                .sent(sentCount.sum())
+                .failed(failedCount.sum())
+                .retries(retryCount.sum())
+                .errors(errors)
+                .build();
+    }
 
-                long duration = System.currentTimeMillis() - start;
-                log.info("✅ Finished sending FCM messages. Total: {}, Success: {}, Time: {}ms",
-                        topicPayloads.size(), successCount, duration);
-            } catch (Exception e) {
-                log.error("❌ Error during batch sending", e);
-            }
+    // One message, how often it has been tried and when it may be sent again
+    private record Delivery(FcmPayload payload, int attempt, long notBefore) implements Delayed {
+        Delivery retry(long backoffMillis) {
+            long delay = backoffMillis << Math.min(attempt - 1, 6);
+            delay += ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+            return new Delivery(payload, attempt + 1, System.currentTimeMillis() + delay);
+        }
 
-        } catch (Exception e) {
-            log.error("❌ Critical error during FCM publishing", e);
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(notBefore - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+
+    // Bookkeeping for one publishAll call
+    private static final class PublishRun {
+        final Set<String> pending = ConcurrentHashMap.newKeySet();
+        final Set<String> failed = ConcurrentHashMap.newKeySet();
+        final DelayQueue<Delivery> retries = new DelayQueue<>();
+        final AtomicLong retryCount = new AtomicLong();
+
+        void fail(String topic) {
+            failed.add(topic);
+            pending.remove(topic);
         }
     }
 
@@ -245,17 +288,39 @@ public class FcmService {
      * @param topic FCM topic
      */
     public void sendClearSignal(String topic) {
-        if (!fcmEnabled)
+        if (!publisher.isEnabled())
             return;
         try {
-            Message message = Message.builder()
-                    .setTopic(topic)
-                    .putData("action", "CLEAR")
-                    .build();
-            FirebaseMessaging.getInstance().send(message);
+            publisher.sendAsync(topic, Map.of("action", "CLEAR")).get();
             log.debug("Sent CLEAR signal to topic: {}", topic);
         } catch (Exception e) {
             log.error("Failed to send CLEAR signal to topic: {}", topic, e);
         }
     }
+
+    /**
+     * Tell a station topic's subscribers that its predictions moved to other
+     * topics. Clients subscribe to every listed topic.
+     *
+     * @param topic  Station topic
+     * @param topics Topics now carrying the station, comma-separated in the
+     *               message
+     * @return false if the signal could not be delivered
+     */
+    public boolean sendMigrationSignal(String topic, List<String> topics) {
+        if (!publisher.isEnabled())
+            return true;
+        try {
+            publisher.sendAsync(topic, Map.of("action", "MIGRATE", "topics", String.join(",", topics))).get();
+            log.info("🔀 Sent MIGRATE signal to topic {}: {} topics", topic, topics.size());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while sending MIGRATE signal to topic: {}", topic);
+            return false;
+        } catch (Exception e) {
+            log.error("Failed to send MIGRATE signal to topic: {}", topic, e);
+            return false;
+        }
+    }
 }
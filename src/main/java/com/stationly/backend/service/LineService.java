@@ -4,6 +4,9 @@ import com.stationly.backend.client.TflApiClient;
 import com.stationly.backend.model.LineInfo;
 import com.stationly.backend.model.LineRouteResponse;
 import com.stationly.backend.model.LineStatusResponse;
+import com.stationly.backend.model.TflLine;
+import com.stationly.backend.model.TflLineRoute;
+import com.stationly.backend.model.TflLineStatus;
 import com.stationly.backend.repository.DataRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -35,15 +38,15 @@ public class LineService {
         }
 
         log.info("DATA: ⚪ Firestore MISS for lines (mode: {}). Fetching from TfL...", mode);
-        List<Map<String, Object>> rawLines = tflApiClient.getLinesByMode(mode);
+        List<TflLine> rawLines = tflApiClient.getLinesByMode(mode);
         if (rawLines == null)
             return Collections.emptyList();
 
         List<LineInfo> lines = rawLines.stream()
                 .map(l -> LineInfo.builder()
-                        .id((String) l.get("id"))
-                        .name((String) l.get("name"))
-                        .modeName((String) l.get("modeName"))
+                        .id(l.id())
+                        .name(l.name())
+                        .modeName(l.modeName())
                         .build())
                 .collect(Collectors.toList());
 
@@ -51,7 +54,6 @@ public class LineService {
         return lines;
     }
 
-    @SuppressWarnings("unchecked")
     public LineRouteResponse getLineRoute(String lineId) {
         Optional<LineRouteResponse> cached = routeRepository.findById(lineId);
         if (cached.isPresent()) {
@@ -60,19 +62,19 @@ public class LineService {
         }
 
         log.info("DATA: ⚪ Firestore MISS for route (line: {}). Fetching from TfL...", lineId);
-        Map<String, Object> rawRoute = tflApiClient.getLineRoute(lineId);
+        TflLineRoute rawRoute = tflApiClient.getLineRoute(lineId);
         if (rawRoute == null)
             return null;
 
-        List<Map<String, Object>> rawSections = (List<Map<String, Object>>) rawRoute.get("routeSections");
+        List<TflLineRoute.RouteSection> rawSections = rawRoute.routeSections();
 
         // Group destinations by direction and ensure uniqueness
         Map<String, Set<LineRouteResponse.Destination>> groupedDirections = new HashMap<>();
         if (rawSections != null) {
-            for (Map<String, Object> section : rawSections) {
-                String direction = (String) section.get("direction");
-                String destinationName = (String) section.get("destinationName");
-                String destinationId = (String) section.get("destination");
+            for (TflLineRoute.RouteSection section : rawSections) {
+                String direction = section.direction();
+                String destinationName = section.destinationName();
+                String destinationId = section.destination();
                 if (direction != null && destinationName != null && destinationId != null) {
                     groupedDirections.computeIfAbsent(direction, k -> new LinkedHashSet<>())
                             .add(LineRouteResponse.Destination.builder()
@@ -91,9 +93,9 @@ public class LineService {
                 .collect(Collectors.toList());
 
         LineRouteResponse response = LineRouteResponse.builder()
-                .id((String) rawRoute.get("id"))
-                .name((String) rawRoute.get("name"))
-                .modeName((String) rawRoute.get("modeName"))
+                .id(rawRoute.id())
+                .name(rawRoute.name())
+                .modeName(rawRoute.modeName())
                 .directions(directions)
                 .build();
 
@@ -112,7 +114,7 @@ public class LineService {
 
             log.info("🚇 Starting line status polling for mode: {}", trimmedMode);
             try {
-                List<Map<String, Object>> rawStatuses = tflApiClient.getLineStatuses(trimmedMode);
+                List<TflLine> rawStatuses = tflApiClient.getLineStatuses(trimmedMode);
                 if (rawStatuses == null || rawStatuses.isEmpty()) {
                     log.warn("⚠️ No line statuses received from TfL for mode: {}", trimmedMode);
                     continue;
@@ -135,24 +137,21 @@ public class LineService {
         return allStatuses;
     }
 
-    @SuppressWarnings("unchecked")
-    private LineStatusResponse mapToLineStatusResponse(Map<String, Object> l) {
-        String id = (String) l.get("id");
-        String name = (String) l.get("name");
-        List<Map<String, Object>> lineStatuses = (List<Map<String, Object>>) l.get("lineStatuses");
+    private LineStatusResponse mapToLineStatusResponse(TflLine l) {
+        List<TflLineStatus> lineStatuses = l.lineStatuses();
 
         String statusSeverityDescription = "Unknown";
         String reason = null;
 
         if (lineStatuses != null && !lineStatuses.isEmpty()) {
-            Map<String, Object> firstStatus = lineStatuses.get(0);
-            statusSeverityDescription = (String) firstStatus.get("statusSeverityDescription");
-            reason = (String) firstStatus.get("reason");
+            TflLineStatus firstStatus = lineStatuses.get(0);
+            statusSeverityDescription = firstStatus.statusSeverityDescription();
+            reason = firstStatus.reason();
         }
 
         return LineStatusResponse.builder()
-                .id(id)
-                .name(name)
+                .id(l.id())
+                .name(l.name())
                 .statusSeverityDescription(statusSeverityDescription)
                 .reason(reason)
                 .lastUpdatedTime(java.time.LocalDateTime.now().toString())
@@ -1,5 +1,8 @@
 package com.stationly.backend.service;
 
+import java.util.Collection;
+import java.util.Map;
+
 public interface MonitoringService {
     /**
      * Records the duration and status of a polling operation.
@@ -17,4 +20,30 @@ public interface MonitoringService {
      * @param count The number of arrivals
      */
     void recordArrivalsCount(String mode, int count);
+
+    /**
+     * Records a point-in-time value for an arbitrary metric.
+     * 
+     * @param name       The metric name (e.g., "RateLimiterQueueDepth")
+     * @param value      The value to record
+     * @param unit       The unit of the value (e.g., "count", "milliseconds")
+     * @param dimensions Additional dimensions to tag the datapoint with
+     */
+    void recordGauge(String name, double value, String unit, Map<String, String> dimensions);
+
+    /**
+     * Records several point-in-time values at once. Implementations that talk to
+     * a remote backend should send them in as few requests as possible.
+     *
+     * @param gauges The values to record
+     */
+    default void recordGauges(Collection<Gauge> gauges) {
+        gauges.forEach(gauge -> recordGauge(gauge.name(), gauge.value(), gauge.unit(), gauge.dimensions()));
+    }
+
+    /**
+     * One value for {@link #recordGauges(Collection)}.
+     */
+    record Gauge(String name, double value, String unit, Map<String, String> dimensions) {
+    }
 }
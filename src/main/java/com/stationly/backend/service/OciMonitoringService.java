@@ -12,15 +12,21 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
 @Slf4j
 public class OciMonitoringService implements MonitoringService {
 
+    // PostMetricData accepts at most 50 metric objects per request
+    private static final int MAX_METRICS_PER_REQUEST = 50;
+
     private MonitoringClient monitoringClient;
 
     @Value("${oci.monitoring.compartment-id:}")
@@ -82,7 +88,78 @@ public class OciMonitoringService implements MonitoringService {
         postMetric("ArrivalsCount", (double) count, "count", dimensions);
     }
 
+    @Override
+    public void recordGauge(String name, double value, String unit, Map<String, String> dimensions) {
+        if (!enabled)
+            return;
+
+        postMetric(name, value, unit, dimensions);
+    }
+
+    /**
+     * Sends all values in one PostMetricData request per
+     * {@value #MAX_METRICS_PER_REQUEST} metrics, instead of one request each.
+     */
+    @Override
+    public void recordGauges(Collection<Gauge> gauges) {
+        if (!enabled || gauges.isEmpty())
+            return;
+
+        Date timestamp = new Date();
+        List<MetricDataDetails> metrics = new ArrayList<>(gauges.size());
+        for (Gauge gauge : gauges) {
+            metrics.add(metricDetails(gauge.name(), gauge.value(), gauge.unit(), gauge.dimensions(), timestamp));
+        }
+        for (int from = 0; from < metrics.size(); from += MAX_METRICS_PER_REQUEST) {
+            List<MetricDataDetails> chunk = metrics.subList(from,
+                    Math.min(metrics.size(), from + MAX_METRICS_PER_REQUEST));
+            try {
+                post(chunk);
+                log.debug("Published {} metrics to OCI in namespace {}", chunk.size(), sanitizedNamespace());
+            } catch (Exception e) {
+                log.warn("Failed to publish {} metrics to OCI. Namespace: {}. Error: {}", chunk.size(),
+                        sanitizedNamespace(), e.getMessage());
+            }
+        }
+    }
+
     private void postMetric(String name, Double value, String unit, Map<String, String> dimensions) {
+        try {
+            post(Collections.singletonList(metricDetails(name, value, unit, dimensions, new Date())));
+            log.debug("Published metric to OCI: {} = {} {} in namespace {}", name, value, unit,
+                    sanitizedNamespace());
+        } catch (Exception e) {
+            log.warn("Failed to publish metric to OCI: {}. Namespace: {}. Error: {}", name, sanitizedNamespace(),
+                    e.getMessage());
+        }
+    }
+
+    private MetricDataDetails metricDetails(String name, double value, String unit, Map<String, String> dimensions,
+            Date timestamp) {
+        return MetricDataDetails.builder()
+                .namespace(sanitizedNamespace())
+                .compartmentId(compartmentId)
+                .name(name)
+                .metadata(Collections.singletonMap("unit", unit))
+                .dimensions(dimensions)
+                .datapoints(Collections.singletonList(
+                        Datapoint.builder()
+                                .timestamp(timestamp)
+                                .value(value)
+                                .count(1)
+                                .build()))
+                .build();
+    }
+
+    private void post(List<MetricDataDetails> metrics) {
+        monitoringClient.postMetricData(PostMetricDataRequest.builder()
+                .postMetricDataDetails(PostMetricDataDetails.builder()
+                        .metricData(metrics)
+                        .build())
+                .build());
+    }
+
+    private String sanitizedNamespace() {
         // Sanitize namespace: must be lowercase and match pattern
         // ^[a-z][a-z0-9_]*[a-z0-9]$
         String sanitizedNamespace = namespace.toLowerCase().replaceAll("[^a-z0-9_]", "_");
@@ -90,34 +167,7 @@ public class OciMonitoringService implements MonitoringService {
         if (!sanitizedNamespace.isEmpty() && !Character.isLetter(sanitizedNamespace.charAt(0))) {
             sanitizedNamespace = "n_" + sanitizedNamespace;
         }
-
-        try {
-            MetricDataDetails metricDetails = MetricDataDetails.builder()
-                    .namespace(sanitizedNamespace)
-                    .compartmentId(compartmentId)
-                    .name(name)
-                    .metadata(Collections.singletonMap("unit", unit))
-                    .dimensions(dimensions)
-                    .datapoints(Collections.singletonList(
-                            Datapoint.builder()
-                                    .timestamp(new Date())
-                                    .value(value)
-                                    .count(1)
-                                    .build()))
-                    .build();
-
-            PostMetricDataRequest request = PostMetricDataRequest.builder()
-                    .postMetricDataDetails(PostMetricDataDetails.builder()
-                            .metricData(Collections.singletonList(metricDetails))
-                            .build())
-                    .build();
-
-            monitoringClient.postMetricData(request);
-            log.info("Published metric to OCI: {} = {} {} in namespace {}", name, value, unit, sanitizedNamespace);
-        } catch (Exception e) {
-            log.warn("Failed to publish metric to OCI: {}. Namespace: {}. Error: {}", name, sanitizedNamespace,
-                    e.getMessage());
-        }
+        return sanitizedNamespace;
     }
 
     @PreDestroy
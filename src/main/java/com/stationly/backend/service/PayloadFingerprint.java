@@ -0,0 +1,87 @@
+package com.stationly.backend.service;
+
+import com.stationly.backend.model.DirectionPredictions;
+import com.stationly.backend.model.LineData;
+import com.stationly.backend.model.PredictionItem;
+import com.stationly.backend.model.StationPredictions;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 64-bit content hash of a station payload, used to detect unchanged stations
+ * between polls.
+ * <p>
+ * Covers everything a client sees except {@code lut}. Lines and directions are
+ * combined order-independently, so a different map iteration order does not
+ * count as a change; predictions within a direction are hashed in order.
+ */
+final class PayloadFingerprint {
+
+    private static final long NULL_HASH = 0x9E3779B97F4A7C15L;
+
+    private PayloadFingerprint() {
+    }
+
+    static long of(StationPredictions station) {
+        long hash = combine(hash(station.getStationId()), hash(station.getStationName()));
+        long lines = 0;
+        if (station.getLines() != null) {
+            for (LineData line : station.getLines().values()) {
+                lines += mix(combine(combine(hash(line.getLineId()), hash(line.getLineName())), directions(line)));
+            }
+        }
+        return mix(combine(hash, lines));
+    }
+
+    private static long directions(LineData line) {
+        long directions = 0;
+        if (line.getDirections() == null) {
+            return directions;
+        }
+        for (Map.Entry<String, DirectionPredictions> entry : line.getDirections().entrySet()) {
+            long hash = hash(entry.getKey());
+            List<PredictionItem> predictions = entry.getValue().getPredictions();
+            if (predictions != null) {
+                for (PredictionItem item : predictions) {
+                    hash = combine(hash, item(item));
+                }
+            }
+            directions += mix(hash);
+        }
+        return directions;
+    }
+
+    private static long item(PredictionItem item) {
+        long hash = combine(hash(item.getDestinationNaptanId()), hash(item.getPlatformName()));
+        hash = combine(hash, item.getExpectedArrival() != null ? item.getExpectedArrival() : NULL_HASH);
+        return combine(hash, hash(item.getDisplayName()));
+    }
+
+    // FNV-1a over UTF-16 code units
+    private static long hash(String value) {
+        if (value == null) {
+            return NULL_HASH;
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long combine(long a, long b) {
+        return mix(a * 31 + b);
+    }
+
+    // MurmurHash3 finalizer
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,90 @@
+package com.stationly.backend.service;
+
+import com.stationly.backend.model.DirectionPredictions;
+import com.stationly.backend.model.LineData;
+import com.stationly.backend.model.PredictionItem;
+import com.stationly.backend.model.StationPredictions;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.ToIntFunction;
+
+/**
+ * Works out which predictions to drop from a station payload without
+ * re-serializing it.
+ * <p>
+ * Starting from the exact size of the full payload, each removal subtracts the
+ * serialized size of the prediction plus the comma separating it from its
+ * neighbour (a direction emptied this way keeps its {@code []}). Removals
+ * always take the furthest remaining prediction across all directions, ties
+ * going to the direction encountered first, so the result matches repeatedly
+ * removing the furthest prediction and re-measuring.
+ */
+class PayloadSizeAccountant {
+
+    // Predictions without an ETA are the first to go
+    private static final Comparator<Cursor> FURTHEST_FIRST = Comparator
+            .comparing((Cursor c) -> c.lastEta(), Comparator.nullsFirst(Comparator.<Long>reverseOrder()))
+            .thenComparingInt(c -> c.order);
+
+    private final ToIntFunction<PredictionItem> itemSize;
+
+    PayloadSizeAccountant(ToIntFunction<PredictionItem> itemSize) {
+        this.itemSize = itemSize;
+    }
+
+    /**
+     * Drops the furthest predictions until the accounted size fits.
+     *
+     * @param station  Station to prune in place
+     * @param size     Serialized size of the station as it is now
+     * @param maxBytes Size to get under
+     * @return The serialized size after pruning
+     */
+    int prune(StationPredictions station, int size, int maxBytes) {
+        PriorityQueue<Cursor> queue = new PriorityQueue<>(FURTHEST_FIRST);
+        List<Cursor> cursors = new ArrayList<>();
+        for (LineData line : station.getLines().values()) {
+            for (DirectionPredictions direction : line.getDirections().values()) {
+                List<PredictionItem> predictions = direction.getPredictions();
+                if (predictions != null && !predictions.isEmpty()) {
+                    Cursor cursor = new Cursor(predictions, cursors.size());
+                    cursors.add(cursor);
+                    queue.add(cursor);
+                }
+            }
+        }
+
+        while (size > maxBytes && !queue.isEmpty()) {
+            Cursor cursor = queue.poll();
+            PredictionItem dropped = cursor.predictions.get(--cursor.remaining);
+            size -= itemSize.applyAsInt(dropped) + (cursor.remaining > 0 ? 1 : 0);
+            if (cursor.remaining > 0) {
+                queue.add(cursor);
+            }
+        }
+
+        for (Cursor cursor : cursors) {
+            cursor.predictions.subList(cursor.remaining, cursor.predictions.size()).clear();
+        }
+        return size;
+    }
+
+    private static final class Cursor {
+        final List<PredictionItem> predictions;
+        final int order;
+        int remaining;
+
+        Cursor(List<PredictionItem> predictions, int order) {
+            this.predictions = predictions;
+            this.order = order;
+            this.remaining = predictions.size();
+        }
+
+        Long lastEta() {
+            return predictions.get(remaining - 1).getExpectedArrival();
+        }
+    }
+}
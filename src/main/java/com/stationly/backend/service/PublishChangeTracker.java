@@ -0,0 +1,90 @@
+package com.stationly.backend.service;
+
+import com.stationly.backend.model.FcmPayload;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers the fingerprint last published to each FCM topic so that stations
+ * whose predictions have not changed since the previous poll are not sent
+ * again. A topic is re-sent anyway once its last send is older than
+ * {@code fcm.dedupe.max-staleness}, which keeps {@code lut} moving on clients.
+ * <p>
+ * Selected payloads are recorded as published straight away; topics whose send
+ * then fails must be handed back to {@link #forget(Collection)} so they are
+ * retried next cycle.
+ */
+@Component
+@Slf4j
+public class PublishChangeTracker {
+
+    private final boolean enabled;
+    private final long maxStalenessMillis;
+    private final LongSupplier clock;
+    private final Map<String, Published> published = new ConcurrentHashMap<>();
+
+    public PublishChangeTracker(@Value("${fcm.dedupe.enabled:true}") boolean enabled,
+            @Value("${fcm.dedupe.max-staleness:5m}") Duration maxStaleness) {
+        this(enabled, maxStaleness, System::currentTimeMillis);
+    }
+
+    PublishChangeTracker(boolean enabled, Duration maxStaleness, LongSupplier clock) {
+        this.enabled = enabled;
+        this.maxStalenessMillis = maxStaleness.toMillis();
+        this.clock = clock;
+        log.info("🔁 FCM change detection: {}", enabled ? "max staleness " + maxStaleness : "disabled");
+    }
+
+    /**
+     * Picks the payloads that need sending: new topics, changed content, or a
+     * last send older than the max staleness.
+     */
+    public Selection select(List<FcmPayload> payloads) {
+        if (!enabled) {
+            return new Selection(payloads, 0);
+        }
+        long now = clock.getAsLong();
+        List<FcmPayload> changed = new ArrayList<>(payloads.size());
+        for (FcmPayload payload : payloads) {
+            Published previous = published.get(payload.topic());
+            if (previous != null && previous.fingerprint == payload.fingerprint()
+                    && now - previous.publishedAtMillis < maxStalenessMillis) {
+                continue;
+            }
+            published.put(payload.topic(), new Published(payload.fingerprint(), now));
+            changed.add(payload);
+        }
+        return new Selection(changed, payloads.size() - changed.size());
+    }
+
+    /**
+     * Drops what is remembered for these topics, so their next payload is sent
+     * whatever it contains.
+     */
+    public void forget(Collection<String> topics) {
+        topics.forEach(published::remove);
+    }
+
+    public int size() {
+        return published.size();
+    }
+
+    /**
+     * @param payloads   Payloads to send
+     * @param suppressed Payloads skipped because nothing changed
+     */
+    public record Selection(List<FcmPayload> payloads, int suppressed) {
+    }
+
+    private record Published(long fingerprint, long publishedAtMillis) {
+    }
+}
@@ -0,0 +1,129 @@
+package com.stationly.backend.service;
+
+import com.stationly.backend.model.ArrivalPrediction;
+import com.stationly.backend.model.PredictionItem;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Incremental station → line → direction grouping for arrival predictions.
+ * Arrivals are converted to {@link PredictionItem}s as they are pushed, so the
+ * raw TfL rows can be discarded immediately after decoding.
+ * <p>
+ * Each direction only keeps its {@value #MAX_PREDICTIONS_PER_DIRECTION}
+ * earliest predictions in a {@link BoundedPredictionHeap}; arrivals that would
+ * not make the cut are dropped before an item is even built.
+ * <p>
+ * TfL can list the same vehicle more than once for a stop (platform aliases,
+ * stale rows). Rows are reconciled on prediction id and station: only the one
+ * with the latest {@code timestamp} is kept, the first on a tie, and a fresher
+ * row replaces the item of the earlier one wherever it was grouped. A
+ * direction can then be one short of the cap when a row it turned away
+ * earlier would have qualified after the replacement.
+ * <p>
+ * Not thread-safe: feed it from a single sequential source (e.g. a Flux).
+ */
+public class StationGroupAccumulator {
+
+    static final int MAX_PREDICTIONS_PER_DIRECTION = 10;
+
+    private final Function<ArrivalPrediction, PredictionItem> itemMapper;
+    private final Map<String, StationSlot> stations = new LinkedHashMap<>();
+    private final Map<String, Vehicle> vehicles = new HashMap<>();
+    private int arrivalsReceived;
+    private int duplicates;
+
+    StationGroupAccumulator(Function<ArrivalPrediction, PredictionItem> itemMapper) {
+        this.itemMapper = itemMapper;
+    }
+
+    /**
+     * Routes a single arrival into its station/line/direction slot.
+     */
+    public void add(ArrivalPrediction arrival) {
+        arrivalsReceived++;
+        String stationId = arrival.getNaptanId();
+        if (stationId == null) {
+            return;
+        }
+
+        String vehicleKey = arrival.getId() != null ? stationId + '|' + arrival.getId() : null;
+        long timestamp = arrival.getTimestamp() != null ? arrival.getTimestamp() : Long.MIN_VALUE;
+        Vehicle previous = vehicleKey != null ? vehicles.get(vehicleKey) : null;
+        if (previous != null) {
+            duplicates++;
+            if (timestamp <= previous.timestamp) {
+                return;
+            }
+            if (previous.item != null) {
+                previous.direction.remove(previous.item);
+            }
+        }
+
+        StationSlot station = stations.computeIfAbsent(stationId, k -> new StationSlot(arrival.getStationName()));
+        if (arrival.getLineId() == null) {
+            return;
+        }
+
+        LineSlot line = station.lines.computeIfAbsent(arrival.getLineId(), k -> new LineSlot(arrival.getLineName()));
+        if (arrival.getDirection() == null) {
+            return;
+        }
+
+        BoundedPredictionHeap direction = line.directions.computeIfAbsent(arrival.getDirection(),
+                k -> new BoundedPredictionHeap(MAX_PREDICTIONS_PER_DIRECTION));
+        long eta = arrival.getExpectedArrival() != null ? arrival.getExpectedArrival() : Long.MAX_VALUE;
+        PredictionItem item = null;
+        if (direction.accepts(eta)) {
+            item = itemMapper.apply(arrival);
+            direction.offer(eta, item);
+        }
+        if (vehicleKey != null) {
+            vehicles.put(vehicleKey, new Vehicle(timestamp, direction, item));
+        }
+    }
+
+    /**
+     * @return Total number of arrivals pushed, including ones that could not be grouped
+     */
+    public int getArrivalsReceived() {
+        return arrivalsReceived;
+    }
+
+    /**
+     * @return Rows dropped or superseded as repeats of a vehicle already seen at
+     *         the same station
+     */
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    Map<String, StationSlot> getStations() {
+        return stations;
+    }
+
+    static class StationSlot {
+        final String stationName;
+        final Map<String, LineSlot> lines = new LinkedHashMap<>();
+
+        StationSlot(String stationName) {
+            this.stationName = stationName;
+        }
+    }
+
+    // Where the kept row of a vehicle went; item is null if its direction turned it away
+    private record Vehicle(long timestamp, BoundedPredictionHeap direction, PredictionItem item) {
+    }
+
+    static class LineSlot {
+        final String lineName;
+        final Map<String, BoundedPredictionHeap> directions = new LinkedHashMap<>();
+
+        LineSlot(String lineName) {
+            this.lineName = lineName;
+        }
+    }
+}
@@ -3,10 +3,16 @@ package com.stationly.backend.service;
 import ch.hsr.geohash.GeoHash;
 import com.stationly.backend.client.TflApiClient;
 import com.stationly.backend.model.Station;
+import com.stationly.backend.model.TflLine;
+import com.stationly.backend.model.TflRouteSequence;
+import com.stationly.backend.model.TflStopPoint;
 import com.stationly.backend.repository.DataRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -19,6 +25,9 @@ public class StationService {
     private final TflApiClient tflApiClient;
     private final DataRepository<Station, String> stationRepository;
 
+    // Lines processed concurrently during a mode sync
+    private static final int LINE_CONCURRENCY = 5;
+
     /**
      * Search stations based on search keys.
      * Keys can be: mode, lineId, mode_lineId, lineId_direction,
@@ -70,7 +79,7 @@ public class StationService {
         log.info("✅ Loaded {} existing stations.", existingStations.size());
 
         // 2. Fetch lines to process
-        List<Map<String, Object>> lines = tflApiClient.getLinesByMode(modeName);
+        List<TflLine> lines = tflApiClient.getLinesByMode(modeName);
         if (lines == null || lines.isEmpty()) {
             log.warn("⚠️ No lines found for mode: {}", modeName);
             return;
@@ -91,33 +100,18 @@ public class StationService {
         // Then iterate Fresh Changes, merge with Existing to see if anything ACTUALLY
         // changed.
 
-        // Rate limited to ~5 req/sec globally, so no need for many threads. 5 is ample.
-        java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(5);
-        List<java.util.concurrent.Future<?>> futures = new ArrayList<>();
-
-        for (Map<String, Object> line : lines) {
-            String lineId = (String) line.get("id");
-            if (!lineFilter.test(lineId))
-                continue;
-
-            futures.add(executor.submit(() -> {
-                try {
-                    processLineForBatch(lineId, modeName, freshStationsMap, existingStations); // Process into fresh map
-                } catch (Exception e) {
-                    log.error("❌ Failed to process line {}: {}", lineId, e.getMessage());
-                }
-            }));
-        }
-
-        // Wait for all
-        for (java.util.concurrent.Future<?> f : futures) {
-            try {
-                f.get();
-            } catch (Exception e) {
-                log.error("❌ Error waiting for future", e);
-            }
-        }
-        executor.shutdown();
+        // Rate limited to ~5 req/sec globally, so a handful of lines in flight is ample.
+        // Requests are composed reactively, so no dedicated threads are needed.
+        Flux.fromIterable(lines)
+                .mapNotNull(TflLine::id)
+                .filter(lineFilter)
+                .flatMap(lineId -> processLineForBatch(lineId, modeName, freshStationsMap, existingStations)
+                        .onErrorResume(e -> {
+                            log.error("❌ Failed to process line {}: {}", lineId, e.getMessage());
+                            return Mono.empty();
+                        }), LINE_CONCURRENCY)
+                .then()
+                .block();
 
         // 4. Diff and Identify Changed Stations
         log.info("🔄 Validating changes against existing DB...");
@@ -204,7 +198,7 @@ public class StationService {
         Map<String, Station> existingStations = getSavedStations();
 
         try {
-            processLineForBatch(lineId, modeName, stationsToSave, existingStations);
+            processLineForBatch(lineId, modeName, stationsToSave, existingStations).block();
 
             // Diff and Save (Simplified for single line - just save what we processed if
             // changed)
@@ -228,59 +222,74 @@ public class StationService {
         }
     }
 
-    private void processLineForBatch(String lineId, String modeName, Map<String, Station> freshMap,
+    private Mono<Void> processLineForBatch(String lineId, String modeName, Map<String, Station> freshMap,
             Map<String, Station> existingStations) {
-        // 1. Fetch Basic Station Info (StopPoints)
-        List<Map<String, Object>> stopPoints = tflApiClient.getStopPointsByLine(lineId);
-        if (stopPoints == null || stopPoints.isEmpty()) {
-            return;
-        }
-
-        // 2. Fetch Route Sequences (Inbound & Outbound)
-        Set<String> inboundIds = fetchNaptanIdsFromRouteSequence(lineId, "inbound");
-        Set<String> outboundIds = fetchNaptanIdsFromRouteSequence(lineId, "outbound");
+        // 1. Fetch Basic Station Info (StopPoints); nothing to merge without them
+        // 2. Fetch Route Sequences (Inbound & Outbound) concurrently
+        return tflApiClient.fetchStopPointsByLine(lineId)
+                .filter(stopPoints -> !stopPoints.isEmpty())
+                .flatMap(stopPoints -> Mono.zip(
+                        fetchNaptanIdsFromRouteSequence(lineId, "inbound"),
+                        fetchNaptanIdsFromRouteSequence(lineId, "outbound"))
+                        .map(directions -> new LineData(stopPoints, directions.getT1(), directions.getT2())))
+                // Merging locks freshMap entries and copies stations; keep it off the event loop
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(line -> {
+                    // One timestamp for the whole line rather than one per station merge
+                    String syncTime = java.time.LocalDateTime.now()
+                            .format(java.time.format.DateTimeFormatter.ISO_DATE_TIME);
+                    // 3. Process each StopPoint & Aggregate
+                    for (TflStopPoint sp : line.stopPoints()) {
+                        updateStationInBatch(sp, lineId, modeName, line.inboundIds(), line.outboundIds(), freshMap,
+                                existingStations, syncTime);
+                    }
+                })
+                .then();
+    }
 
-        // 3. Process each StopPoint & Aggregate
-        for (Map<String, Object> sp : stopPoints) {
-            updateStationInBatch(sp, lineId, modeName, inboundIds, outboundIds, freshMap, existingStations);
-        }
+    // Everything fetched from TfL for one line
+    private record LineData(List<TflStopPoint> stopPoints, Set<String> inboundIds, Set<String> outboundIds) {
     }
 
-    private Set<String> fetchNaptanIdsFromRouteSequence(String lineId, String direction) {
-        try {
-            Map<String, Object> routeSeq = tflApiClient.getRouteSequence(lineId, direction);
-            if (routeSeq == null)
-                return Collections.emptySet();
-
-            List<Map<String, Object>> orderedRoutes = (List<Map<String, Object>>) routeSeq.get("orderedLineRoutes");
-            if (orderedRoutes == null)
-                return Collections.emptySet();
-
-            Set<String> naptanIds = new HashSet<>();
-            for (Map<String, Object> route : orderedRoutes) {
-                List<String> ids = (List<String>) route.get("naptanIds");
-                if (ids != null) {
-                    naptanIds.addAll(ids);
-                }
-            }
-            return naptanIds;
-        } catch (Exception e) {
-            log.warn("⚠️ Failed to fetch {} route sequence for line {}: {}", direction, lineId, e.getMessage());
-            return Collections.emptySet();
-        }
+    private Mono<Set<String>> fetchNaptanIdsFromRouteSequence(String lineId, String direction) {
+        return tflApiClient.fetchRouteSequence(lineId, direction)
+                .map(routeSeq -> {
+                    List<TflRouteSequence.OrderedLineRoute> orderedRoutes = routeSeq.orderedLineRoutes();
+                    if (orderedRoutes == null)
+                        return Collections.<String>emptySet();
+
+                    Set<String> naptanIds = new HashSet<>();
+                    for (TflRouteSequence.OrderedLineRoute route : orderedRoutes) {
+                        List<String> ids = route.naptanIds();
+                        if (ids != null) {
+                            naptanIds.addAll(ids);
+                        }
+                    }
+                    return naptanIds;
+                })
+                .defaultIfEmpty(Collections.emptySet())
+                .onErrorResume(e -> {
+                    log.warn("⚠️ Failed to fetch {} route sequence for line {}: {}", direction, lineId,
+                            e.getMessage());
+                    return Mono.just(Collections.emptySet());
+                });
     }
 
-    private void updateStationInBatch(Map<String, Object> sp, String lineId, String modeName,
+    private void updateStationInBatch(TflStopPoint sp, String lineId, String modeName,
             Set<String> inboundIds, Set<String> outboundIds, Map<String, Station> freshMap,
-            Map<String, Station> existingStations) {
+            Map<String, Station> existingStations, String syncTime) {
 
-        String stopType = (String) sp.get("stopType");
-        String naptanId = (String) sp.get("naptanId");
+        String stopType = sp.stopType();
+        String naptanId = sp.naptanId();
 
         String expectedStopType = com.stationly.backend.util.TflUtils.getExpectedStopType(modeName);
         if (expectedStopType == null || !expectedStopType.equals(stopType)) {
             return;
         }
+        if (sp.lat() == null || sp.lon() == null) {
+            log.warn("⚠️ Skipping stop point {} on line {}: TfL sent no coordinates", naptanId, lineId);
+            return;
+        }
 
         // We use compute to atomically update the FRESH map.
         // We initialize fresh entry with existing state if available, OR new if not.
@@ -307,7 +316,7 @@ public class StationService {
                 }
             }
             // Now merge current line info into currentFresh
-            mergeLineInfoIntoStation(currentFresh, sp, lineId, modeName, inboundIds, outboundIds);
+            mergeLineInfoIntoStation(currentFresh, sp, lineId, modeName, inboundIds, outboundIds, syncTime);
             return currentFresh;
         });
     }
@@ -353,22 +362,19 @@ public class StationService {
         return b.build();
     }
 
-    private void mergeLineInfoIntoStation(Station station, Map<String, Object> sp, String lineId, String modeName,
-            Set<String> inboundIds, Set<String> outboundIds) {
+    private void mergeLineInfoIntoStation(Station station, TflStopPoint sp, String lineId, String modeName,
+            Set<String> inboundIds, Set<String> outboundIds, String syncTime) {
         // Update core fields (Always take latest from TfL)
-        station.setCommonName((String) sp.get("commonName"));
-        station.setLat((Double) sp.get("lat"));
-        station.setLon((Double) sp.get("lon"));
-        station.setStopType((String) sp.get("stopType"));
+        station.setCommonName(sp.commonName());
+        station.setLat(sp.lat());
+        station.setLon(sp.lon());
+        station.setStopType(sp.stopType());
         station.setGeoHash(GeoHash.geoHashStringWithCharacterPrecision(station.getLat(), station.getLon(), 9));
-        station.setLastUpdatedTime(
-                java.time.LocalDateTime.now().format(java.time.format.DateTimeFormatter.ISO_DATE_TIME));
+        station.setLastUpdatedTime(syncTime);
 
         // Extract optional fields from TfL response
-        String indicator = (String) sp.get("indicator");
-        String stopLetter = (String) sp.get("stopLetter");
-        station.setIndicator(indicator);
-        station.setStopLetter(stopLetter);
+        station.setIndicator(sp.indicator());
+        station.setStopLetter(sp.stopLetter());
 
         // Update Mode Group
         Station.ModeGroup modeGroup = station.getModes().computeIfAbsent(modeName, k -> Station.ModeGroup.builder()
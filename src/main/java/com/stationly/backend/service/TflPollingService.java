@@ -1,23 +1,23 @@
 package com.stationly.backend.service;
 
 import com.stationly.backend.client.TflApiClient;
-import com.stationly.backend.model.ArrivalPrediction;
+import com.stationly.backend.model.FcmPayload;
 import com.stationly.backend.model.RefreshSummary;
-import com.stationly.backend.model.StationPredictions;
+import com.stationly.backend.model.StationTopics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -28,15 +28,20 @@ public class TflPollingService {
         private final DataTransformationService transformationService;
         private final FcmService fcmService;
         private final MonitoringService monitoringService;
+        private final PublishChangeTracker changeTracker;
+        private final TopicDebouncer debouncer;
 
         @Value("${tfl.transport.modes}")
         private String tflTransportModes;
 
+        @Value("${tfl.arrivals.streaming.enabled:true}")
+        private boolean streamingEnabled;
+
         private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
         /**
          * Refresh all configured transport modes
-         * 
+         *
          * @return List of summaries for each mode
          */
         public List<RefreshSummary> refreshAll() {
@@ -47,125 +52,187 @@ public class TflPollingService {
                 log.info("🚇 TFL REFRESH STARTED | Modes: {} | Time: {}", tflTransportModes.toUpperCase(), timestamp);
                 log.info("═══════════════════════════════════════════════════════════════════");
 
-                String[] modes = tflTransportModes.split(",");
-                var executor = java.util.concurrent.Executors.newFixedThreadPool(modes.length + 2);
-                try {
-                        // Process all modes in parallel
-                        List<CompletableFuture<RefreshSummary>> futures = Arrays.stream(modes)
-                                        .map(String::trim)
-                                        .filter(mode -> !mode.isEmpty())
-                                        .map(mode -> CompletableFuture.supplyAsync(() -> refreshMode(mode), executor))
-                                        .collect(Collectors.toList());
-
-                        // Wait for all modes to complete and gather summaries
-                        List<RefreshSummary> summaries = futures.stream()
-                                        .map(CompletableFuture::join)
-                                        .collect(Collectors.toList());
-
-                        long totalDuration = System.currentTimeMillis() - startMillis;
-                        monitoringService.recordPollingDuration("total", totalDuration, "SUCCESS");
-                        log.info("═══════════════════════════════════════════════════════════════════");
-                        log.info("🚇 TFL REFRESH ENDED | Total Time: {}ms", totalDuration);
-                        log.info("═══════════════════════════════════════════════════════════════════");
-                        return summaries;
-                } finally {
-                        executor.shutdown();
-                }
+                // Fan out over modes on the event loop; summaries keep the configured order
+                List<RefreshSummary> summaries = Flux.fromArray(tflTransportModes.split(","))
+                                .map(String::trim)
+                                .filter(mode -> !mode.isEmpty())
+                                .flatMapSequential(this::refreshModeAsync)
+                                .collectList()
+                                .block();
+
+                long totalDuration = System.currentTimeMillis() - startMillis;
+                monitoringService.recordPollingDuration("total", totalDuration, "SUCCESS");
+                log.info("═══════════════════════════════════════════════════════════════════");
+                log.info("🚇 TFL REFRESH ENDED | Total Time: {}ms", totalDuration);
+                log.info("═══════════════════════════════════════════════════════════════════");
+                return summaries;
         }
 
         /**
          * Manually refresh data for a specific mode
-         * 
+         *
          * @param mode Transport mode (tube, dlr, bus, etc.)
          * @return Summary of the refresh operation
          */
         public RefreshSummary refreshMode(String mode) {
-                String timestamp = LocalDateTime.now().format(TIME_FORMATTER);
-                LocalDateTime startTime = LocalDateTime.now();
-                long startMillis = System.currentTimeMillis();
-
-                log.info("───────────────────────────────────────────────────────────────────");
-                log.info("🚇 POLLING MODE: {} | Time: {}", mode.toUpperCase(), timestamp);
-                log.info("───────────────────────────────────────────────────────────────────");
-
-                try {
-                        // Fetch arrivals from TfL API
-                        log.info("📡 Fetching arrivals from TfL API for mode: {}", mode);
-                        List<ArrivalPrediction> arrivals = tflApiClient.getArrivalsByMode(mode);
-
-                        if (arrivals == null || arrivals.isEmpty()) {
-                                long duration = System.currentTimeMillis() - startMillis;
-                                log.warn("⚠️  STATUS: NO DATA | No arrivals received from TfL API for mode: {} | Took: {}ms",
-                                                mode,
-                                                duration);
-
-                                monitoringService.recordPollingDuration(mode, duration, "NO_DATA");
-                                return RefreshSummary.builder()
-                                                .mode(mode)
-                                                .timestamp(startTime)
-                                                .status("NO_DATA")
-                                                .arrivalsReceived(0)
-                                                .cacheKeysCreated(0)
-                                                .fcmTopicsPublished(0)
-                                                .ttlSeconds(0L)
-                                                .processingTimeMs(duration)
-                                                .message("No arrivals received from TfL API for mode: " + mode)
-                                                .build();
-                        }
-
-                        log.info("✅ STATUS: SUCCESS | Received {} arrivals from TfL API", arrivals.size());
-
-                        // Transform into grouped Station objects
-                        log.info("🔄 Transforming data into station-centric groups...");
-                        Map<String, StationPredictions> groupedStations = transformationService
-                                        .transformToStationGroups(arrivals);
-
-                        // Publish to FCM in batch
-                        log.info("⚡ Publishing to FCM ({} stations)...", groupedStations.size());
-
-                        Map<String, Object> fcmData = new HashMap<>(groupedStations);
-                        fcmService.publishAll(fcmData);
-                        int fcmCount = groupedStations.size();
-
-                        long duration = System.currentTimeMillis() - startMillis;
-                        log.info("✅ SUMMARY: Mode={} | {} arrivals → {} station keys → {} FCM topics | Took: {}ms",
-                                        mode, arrivals.size(), groupedStations.size(), fcmCount, duration);
+                return refreshModeAsync(mode).block();
+        }
 
-                        monitoringService.recordPollingDuration(mode, duration, "SUCCESS");
-                        monitoringService.recordArrivalsCount(mode, arrivals.size());
+        /**
+         * Reactive refresh of a single mode. Arrivals are fetched without holding a
+         * thread; transformation and FCM publishing (CPU and blocking I/O) are moved
+         * to the bounded elastic scheduler.
+         *
+         * @param mode Transport mode (tube, dlr, bus, etc.)
+         * @return Summary of the refresh operation; never errors
+         */
+        public Mono<RefreshSummary> refreshModeAsync(String mode) {
+                return Mono.defer(() -> {
+                        String timestamp = LocalDateTime.now().format(TIME_FORMATTER);
+                        LocalDateTime startTime = LocalDateTime.now();
+                        long startMillis = System.currentTimeMillis();
+
+                        log.info("───────────────────────────────────────────────────────────────────");
+                        log.info("🚇 POLLING MODE: {} | Time: {}", mode.toUpperCase(), timestamp);
+                        log.info("───────────────────────────────────────────────────────────────────");
+
+                        // Fetch arrivals from TfL API straight into station groups
+                        log.info("📡 Fetching arrivals from TfL API for mode: {} (streaming: {})", mode,
+                                        streamingEnabled);
+                        StationGroupAccumulator accumulator = transformationService.newAccumulator();
+                        Mono<StationGroupAccumulator> fetched = streamingEnabled
+                                        ? tflApiClient.fetchArrivalsByMode(mode)
+                                                        .doOnNext(accumulator::add)
+                                                        .then(Mono.just(accumulator))
+                                        : tflApiClient.fetchArrivalsByMode(mode)
+                                                        .collectList()
+                                                        .map(arrivals -> {
+                                                                arrivals.forEach(accumulator::add);
+                                                                return accumulator;
+                                                        });
+
+                        return fetched
+                                        .publishOn(Schedulers.boundedElastic())
+                                        .map(acc -> processArrivals(mode, acc, startTime, startMillis))
+                                        .onErrorResume(e -> Mono.just(failedSummary(mode, startTime, startMillis, e)));
+                });
+        }
 
-                        return RefreshSummary.builder()
-                                        .mode(mode)
-                                        .timestamp(startTime)
-                                        .status("SUCCESS")
-                                        .arrivalsReceived(arrivals.size())
-                                        .cacheKeysCreated(groupedStations.size())
-                                        .fcmTopicsPublished(fcmCount)
-                                        .ttlSeconds(0L)
-                                        .processingTimeMs(duration)
-                                        .message(String.format(
-                                                        "Successfully processed %d arrivals into %d station keys",
-                                                        arrivals.size(), groupedStations.size()))
-                                        .build();
+        private RefreshSummary processArrivals(String mode, StationGroupAccumulator accumulator,
+                        LocalDateTime startTime, long startMillis) {
+                int arrivalsReceived = accumulator.getArrivalsReceived();
 
-                } catch (Exception e) {
+                if (arrivalsReceived == 0) {
                         long duration = System.currentTimeMillis() - startMillis;
-                        log.error("❌ STATUS: FAILED | Error during TfL polling for mode: {} | Took: {}ms", mode,
-                                        duration, e);
-
-                        monitoringService.recordPollingDuration(mode, duration, "FAILED");
+                        log.warn("⚠️  STATUS: NO DATA | No arrivals received from TfL API for mode: {} | Took: {}ms",
+                                        mode,
+                                        duration);
 
+                        monitoringService.recordPollingDuration(mode, duration, "NO_DATA");
                         return RefreshSummary.builder()
                                         .mode(mode)
                                         .timestamp(startTime)
-                                        .status("FAILED")
+                                        .status("NO_DATA")
                                         .arrivalsReceived(0)
+                                        .duplicatesRemoved(0)
                                         .cacheKeysCreated(0)
                                         .fcmTopicsPublished(0)
+                                        .fcmTopicsSuppressed(0)
+                                        .fcmTopicsDebounced(0)
                                         .ttlSeconds(0L)
                                         .processingTimeMs(duration)
-                                        .message("Error during polling: " + e.getMessage())
+                                        .message("No arrivals received from TfL API for mode: " + mode)
                                         .build();
                 }
+
+                int duplicates = accumulator.getDuplicates();
+                log.info("✅ STATUS: SUCCESS | Received {} arrivals from TfL API ({} duplicate vehicle rows)",
+                                arrivalsReceived, duplicates);
+
+                // Transform into serialized, ready-to-send station payloads
+                log.info("🔄 Transforming data into station-centric groups...");
+                List<FcmPayload> payloads = transformationService.transformToPayloads(accumulator);
+                announceTopicMigrations();
+
+                // Skip stations whose content is unchanged since their last send
+                PublishChangeTracker.Selection selection = changeTracker.select(payloads);
+                // Hold changes to topics sent too recently; release held ones that are due
+                TopicDebouncer.Batch batch = debouncer.offer(mode, selection.payloads());
+                int fcmCount = batch.payloads().size();
+
+                // Publish to FCM in batch
+                log.info("⚡ Publishing to FCM ({} of {} stations, {} unchanged, {} debounced)...", fcmCount,
+                                payloads.size(), selection.suppressed(), batch.held());
+
+                List<String> failedTopics = fcmService.publishAll(batch.payloads());
+                changeTracker.forget(failedTopics);
+                debouncer.forget(failedTopics);
+
+                long duration = System.currentTimeMillis() - startMillis;
+                log.info("✅ SUMMARY: Mode={} | {} arrivals → {} station keys → {} FCM topics ({} unchanged, {} debounced) | Took: {}ms",
+                                mode, arrivalsReceived, payloads.size(), fcmCount, selection.suppressed(), batch.held(),
+                                duration);
+
+                monitoringService.recordPollingDuration(mode, duration, "SUCCESS");
+                monitoringService.recordArrivalsCount(mode, arrivalsReceived);
+                Map<String, String> dimensions = Map.of("mode", mode);
+                // One request for the cycle's gauges rather than one each
+                monitoringService.recordGauges(List.of(
+                                new MonitoringService.Gauge("FcmTopicsSent", fcmCount, "count", dimensions),
+                                new MonitoringService.Gauge("FcmTopicsSuppressed", selection.suppressed(), "count",
+                                                dimensions),
+                                new MonitoringService.Gauge("FcmTopicsDebounced", batch.held(), "count", dimensions),
+                                new MonitoringService.Gauge("ArrivalDuplicates", duplicates, "count", dimensions)));
+
+                return RefreshSummary.builder()
+                                .mode(mode)
+                                .timestamp(startTime)
+                                .status("SUCCESS")
+                                .arrivalsReceived(arrivalsReceived)
+                                .duplicatesRemoved(duplicates)
+                                .cacheKeysCreated(payloads.size())
+                                .fcmTopicsPublished(fcmCount)
+                                .fcmTopicsSuppressed(selection.suppressed())
+                                .fcmTopicsDebounced(batch.held())
+                                .ttlSeconds(0L)
+                                .processingTimeMs(duration)
+                                .message(String.format(
+                                                "Successfully processed %d arrivals into %d station keys",
+                                                arrivalsReceived, payloads.size()))
+                                .build();
+        }
+
+        // Moves subscribers of newly split stations over before their shard topics are published
+        private void announceTopicMigrations() {
+                List<String> undelivered = new ArrayList<>();
+                for (StationTopics migration : transformationService.drainTopicMigrations()) {
+                        if (!fcmService.sendMigrationSignal(migration.getStationTopic(), migration.getTopics())) {
+                                undelivered.add(migration.getStationId());
+                        }
+                }
+                transformationService.retryTopicMigrations(undelivered);
+        }
+
+        private RefreshSummary failedSummary(String mode, LocalDateTime startTime, long startMillis, Throwable e) {
+                long duration = System.currentTimeMillis() - startMillis;
+                log.error("❌ STATUS: FAILED | Error during TfL polling for mode: {} | Took: {}ms", mode,
+                                duration, e);
+
+                monitoringService.recordPollingDuration(mode, duration, "FAILED");
+
+                return RefreshSummary.builder()
+                                .mode(mode)
+                                .timestamp(startTime)
+                                .status("FAILED")
+                                .arrivalsReceived(0)
+                                .duplicatesRemoved(0)
+                                .cacheKeysCreated(0)
+                                .fcmTopicsPublished(0)
+                                .fcmTopicsSuppressed(0)
+                                .fcmTopicsDebounced(0)
+                                .ttlSeconds(0L)
+                                .processingTimeMs(duration)
+                                .message("Error during polling: " + e.getMessage())
+                                .build();
         }
 }
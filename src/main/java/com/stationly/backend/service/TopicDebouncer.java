@@ -0,0 +1,129 @@
+package com.stationly.backend.service;
+
+import com.stationly.backend.model.FcmPayload;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Spaces out sends to the same topic by at least {@code fcm.debounce.min-interval},
+ * so polling faster does not send every station faster.
+ * <p>
+ * A payload arriving inside its topic's window is held; a newer one replaces
+ * it, and whatever is held goes out with the first cycle of the same mode
+ * after the window closes, so one mode's cycle never carries (or counts)
+ * another mode's sends. A payload is sent straight away when its first prediction has just
+ * dropped below {@code fcm.debounce.urgent-eta} (it was not that close in the
+ * last send), so an imminent arrival is never held back. A zero interval turns
+ * debouncing off.
+ */
+@Component
+@Slf4j
+public class TopicDebouncer {
+
+    private final long minIntervalMillis;
+    private final long urgentEtaMillis;
+    private final LongSupplier clock;
+    private final Map<String, TopicState> topics = new ConcurrentHashMap<>();
+
+    public TopicDebouncer(@Value("${fcm.debounce.min-interval:0s}") Duration minInterval,
+            @Value("${fcm.debounce.urgent-eta:2m}") Duration urgentEta) {
+        this(minInterval, urgentEta, System::currentTimeMillis);
+    }
+
+    TopicDebouncer(Duration minInterval, Duration urgentEta, LongSupplier clock) {
+        this.minIntervalMillis = minInterval.toMillis();
+        this.urgentEtaMillis = urgentEta.toMillis();
+        this.clock = clock;
+        log.info("⏱️ FCM topic debouncing: {}", minIntervalMillis > 0
+                ? "min interval " + minInterval + ", urgent below " + urgentEta
+                : "disabled");
+    }
+
+    /**
+     * Takes this cycle's changed payloads and returns what to send now: those
+     * outside their topic's window or urgent, plus payloads this mode held in
+     * earlier cycles whose window has closed.
+     *
+     * @param mode Polling mode the payloads come from
+     */
+    public Batch offer(String mode, List<FcmPayload> payloads) {
+        if (minIntervalMillis <= 0) {
+            return new Batch(payloads, 0);
+        }
+        long now = clock.getAsLong();
+        List<FcmPayload> send = new ArrayList<>(payloads.size());
+        int held = 0;
+        for (FcmPayload payload : payloads) {
+            TopicState state = topics.computeIfAbsent(payload.topic(), k -> new TopicState());
+            boolean urgent = payload.earliestEtaMillis() - now < urgentEtaMillis;
+            synchronized (state) {
+                if ((urgent && !state.sentUrgent) || now - state.sentAtMillis >= minIntervalMillis) {
+                    state.sent(now, urgent);
+                    send.add(payload);
+                } else {
+                    state.pending = payload;
+                    state.pendingUrgent = urgent;
+                    state.pendingMode = mode;
+                    held++;
+                }
+            }
+        }
+        for (TopicState state : topics.values()) {
+            synchronized (state) {
+                if (state.pending != null && mode.equals(state.pendingMode)
+                        && now - state.sentAtMillis >= minIntervalMillis) {
+                    send.add(state.pending);
+                    state.sent(now, state.pendingUrgent);
+                }
+            }
+        }
+        return new Batch(send, held);
+    }
+
+    /**
+     * Reopens the window of topics whose send failed, so their next payload is
+     * not held.
+     */
+    public void forget(Collection<String> failedTopics) {
+        for (String topic : failedTopics) {
+            TopicState state = topics.get(topic);
+            if (state != null) {
+                synchronized (state) {
+                    state.sentAtMillis = Long.MIN_VALUE / 2;
+                    state.sentUrgent = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param payloads Payloads to send now
+     * @param held     Payloads of this cycle held back for their topic's window
+     */
+    public record Batch(List<FcmPayload> payloads, int held) {
+    }
+
+    private static final class TopicState {
+        long sentAtMillis = Long.MIN_VALUE / 2;
+        boolean sentUrgent;
+        FcmPayload pending;
+        boolean pendingUrgent;
+        String pendingMode;
+
+        void sent(long now, boolean urgent) {
+            sentAtMillis = now;
+            sentUrgent = urgent;
+            pending = null;
+            pendingMode = null;
+        }
+    }
+}
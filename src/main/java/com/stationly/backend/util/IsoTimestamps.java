@@ -0,0 +1,271 @@
+package com.stationly.backend.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+
+/**
+ * Epoch-millis timestamps with ISO-8601 only at the JSON boundary.
+ * <p>
+ * {@link #parseEpochMillis(CharSequence)} reads the shapes TfL sends
+ * ({@code 2026-01-01T12:00:00Z}, optional 1-9 fraction digits, {@code Z} or a
+ * {@code ±HH:mm} offset, or no offset meaning UTC) straight from the
+ * characters, without building {@code java.time} objects. Anything else goes
+ * through {@link ZonedDateTime#parse}. {@link #formatInstant(long, int, char[])}
+ * writes the same text as {@link java.time.format.DateTimeFormatter#ISO_INSTANT}
+ * for the same instant: no fraction when it is zero, otherwise 3, 6 or 9
+ * digits. Epoch-millis instants therefore never get more than 3.
+ */
+public final class IsoTimestamps {
+
+    // Longest fast-path output: "yyyy-MM-ddTHH:mm:ss.SSSSSSSSSZ"
+    public static final int MAX_FORMATTED_LENGTH = 30;
+
+    private static final int[] DAYS_IN_MONTH = { 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+
+    private IsoTimestamps() {
+    }
+
+    /**
+     * @return Epoch milliseconds of an ISO-8601 date-time; fractions beyond
+     *         milliseconds are truncated
+     * @throws DateTimeException If the text is not an ISO-8601 date-time
+     */
+    public static long parseEpochMillis(CharSequence text) {
+        long millis = parseFast(text);
+        if (millis != Long.MIN_VALUE) {
+            return millis;
+        }
+        return ZonedDateTime.parse(text).toInstant().toEpochMilli();
+    }
+
+    // Long.MIN_VALUE when the text is not one of the common shapes
+    private static long parseFast(CharSequence s) {
+        int len = s.length();
+        if (len < 19 || s.charAt(4) != '-' || s.charAt(7) != '-' || s.charAt(10) != 'T'
+                || s.charAt(13) != ':' || s.charAt(16) != ':') {
+            return Long.MIN_VALUE;
+        }
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 2);
+        int day = digits(s, 8, 2);
+        int hour = digits(s, 11, 2);
+        int minute = digits(s, 14, 2);
+        int second = digits(s, 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return Long.MIN_VALUE;
+        }
+
+        int pos = 19;
+        int millis = 0;
+        if (pos < len && s.charAt(pos) == '.') {
+            int start = ++pos;
+            while (pos < len && isDigit(s.charAt(pos))) {
+                if (pos - start < 3) {
+                    millis = millis * 10 + (s.charAt(pos) - '0');
+                }
+                pos++;
+            }
+            int fractionDigits = pos - start;
+            if (fractionDigits == 0 || fractionDigits > 9) {
+                return Long.MIN_VALUE;
+            }
+            for (int i = fractionDigits; i < 3; i++) {
+                millis *= 10;
+            }
+        }
+
+        int offsetSeconds = 0;
+        if (pos < len) {
+            char c = s.charAt(pos);
+            if (c == 'Z' && pos + 1 == len) {
+                pos++;
+            } else if ((c == '+' || c == '-') && pos + 6 == len && s.charAt(pos + 3) == ':') {
+                int offsetHours = digits(s, pos + 1, 2);
+                int offsetMinutes = digits(s, pos + 4, 2);
+                if (offsetHours < 0 || offsetHours > 18 || offsetMinutes < 0 || offsetMinutes > 59) {
+                    return Long.MIN_VALUE;
+                }
+                offsetSeconds = (offsetHours * 3600 + offsetMinutes * 60) * (c == '-' ? -1 : 1);
+                pos += 6;
+            } else {
+                return Long.MIN_VALUE;
+            }
+        }
+
+        long epochSecond = daysFromCivil(year, month, day) * 86400L + hour * 3600L + minute * 60L + second
+                - offsetSeconds;
+        return epochSecond * 1000 + millis;
+    }
+
+    /**
+     * Writes an epoch-millis instant as ISO-8601 in UTC, e.g.
+     * {@code 2026-01-01T12:00:00Z} or {@code 2026-01-01T12:00:00.250Z}.
+     *
+     * @param buffer At least {@value #MAX_FORMATTED_LENGTH} characters
+     * @return Number of characters written
+     */
+    public static int formatInstant(long epochMillis, char[] buffer) {
+        return formatInstant(Math.floorDiv(epochMillis, 1000), (int) Math.floorMod(epochMillis, 1000) * 1_000_000,
+                buffer);
+    }
+
+    /**
+     * Writes an instant as ISO-8601 in UTC, exactly as
+     * {@link java.time.format.DateTimeFormatter#ISO_INSTANT} would, e.g.
+     * {@code 2026-01-01T12:00:00.123456789Z}.
+     *
+     * @param nanos  Nanosecond of the second, 0 to 999,999,999
+     * @param buffer At least {@value #MAX_FORMATTED_LENGTH} characters
+     * @return Number of characters written
+     */
+    public static int formatInstant(long epochSecond, int nanos, char[] buffer) {
+        long epochDay = Math.floorDiv(epochSecond, 86400);
+        int secondOfDay = (int) Math.floorMod(epochSecond, 86400);
+
+        // Days to civil date (proleptic Gregorian)
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        if (year < 0 || year > 9999) {
+            String text = Instant.ofEpochSecond(epochSecond, nanos).toString();
+            text.getChars(0, text.length(), buffer, 0);
+            return text.length();
+        }
+
+        put(buffer, 0, (int) year, 4);
+        buffer[4] = '-';
+        put(buffer, 5, month, 2);
+        buffer[7] = '-';
+        put(buffer, 8, day, 2);
+        buffer[10] = 'T';
+        put(buffer, 11, secondOfDay / 3600, 2);
+        buffer[13] = ':';
+        put(buffer, 14, secondOfDay / 60 % 60, 2);
+        buffer[16] = ':';
+        put(buffer, 17, secondOfDay % 60, 2);
+        int pos = 19;
+        if (nanos != 0) {
+            // Same grouping as ISO_INSTANT: as few of 3, 6 or 9 digits as needed
+            int digits = nanos % 1_000_000 == 0 ? 3 : nanos % 1000 == 0 ? 6 : 9;
+            buffer[pos++] = '.';
+            put(buffer, pos, digits == 3 ? nanos / 1_000_000 : digits == 6 ? nanos / 1000 : nanos, digits);
+            pos += digits;
+        }
+        buffer[pos++] = 'Z';
+        return pos;
+    }
+
+    public static String formatInstant(long epochMillis) {
+        char[] buffer = new char[MAX_FORMATTED_LENGTH];
+        return new String(buffer, 0, formatInstant(epochMillis, buffer));
+    }
+
+    public static String formatInstant(Instant instant) {
+        char[] buffer = new char[MAX_FORMATTED_LENGTH];
+        return new String(buffer, 0, formatInstant(instant.getEpochSecond(), instant.getNano(), buffer));
+    }
+
+    private static long daysFromCivil(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        if (month == 2 && (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0))) {
+            return 29;
+        }
+        return DAYS_IN_MONTH[month - 1];
+    }
+
+    // -1 if any character is not a digit
+    private static int digits(CharSequence s, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = s.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static void put(char[] buffer, int start, int value, int width) {
+        for (int i = start + width - 1; i >= start; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * Reads an ISO-8601 date-time string into epoch milliseconds.
+     */
+    public static class EpochMillisDeserializer extends StdScalarDeserializer<Long> {
+
+        public EpochMillisDeserializer() {
+            super(Long.class);
+        }
+
+        @Override
+        public Long deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.hasToken(JsonToken.VALUE_NUMBER_INT)) {
+                return p.getLongValue();
+            }
+            if (!p.hasToken(JsonToken.VALUE_STRING)) {
+                return (Long) ctxt.handleUnexpectedToken(Long.class, p);
+            }
+            CharBuffer text = CharBuffer.wrap(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+            if (text.length() == 0) {
+                return null;
+            }
+            try {
+                return parseEpochMillis(text);
+            } catch (DateTimeException e) {
+                return (Long) ctxt.handleWeirdStringValue(Long.class, text.toString(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes epoch milliseconds as an ISO-8601 instant string.
+     */
+    public static class InstantSerializer extends StdSerializer<Long> {
+
+        public InstantSerializer() {
+            super(Long.class);
+        }
+
+        @Override
+        public void serialize(Long value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            char[] buffer = new char[MAX_FORMATTED_LENGTH];
+            gen.writeString(buffer, 0, formatInstant(value, buffer));
+        }
+    }
+}
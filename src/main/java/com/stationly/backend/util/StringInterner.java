@@ -0,0 +1,122 @@
+package com.stationly.backend.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, lock-free intern table for low-cardinality strings such as line ids,
+ * station names and platform names.
+ * <p>
+ * Lookups hash the characters straight from the parser's buffer, so a value
+ * that is already in the table costs no allocation at all; only the first
+ * sighting builds a {@code String}. The table is a fixed array probed at two
+ * slots, and a new value overwrites the older of a busy pair, so its size never
+ * changes however many distinct values go through it. Racing writers can at
+ * worst make a lookup miss: slots only ever hold complete, immutable strings.
+ */
+public final class StringInterner {
+
+    /**
+     * Shared by the arrival fields that repeat across rows, and across polling
+     * cycles; a tube or bus cycle has a few thousand distinct values.
+     */
+    public static final StringInterner ARRIVAL_FIELDS = new StringInterner(1 << 14, 96);
+
+    private final String[] table;
+    private final int mask;
+    private final int maxLength;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param capacity  Slots in the table, rounded up to a power of two
+     * @param maxLength Longer strings are returned as new instances, uncached
+     */
+    public StringInterner(int capacity, int maxLength) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.table = new String[size];
+        this.mask = size - 1;
+        this.maxLength = maxLength;
+    }
+
+    public String intern(char[] chars, int offset, int length) {
+        if (length > maxLength) {
+            return new String(chars, offset, length);
+        }
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int slot = spread(hash) & mask;
+        int other = slot ^ 1;
+        String first = table[slot];
+        if (matches(first, hash, chars, offset, length)) {
+            hits.increment();
+            return first;
+        }
+        String second = table[other];
+        if (matches(second, hash, chars, offset, length)) {
+            hits.increment();
+            return second;
+        }
+        misses.increment();
+        String value = new String(chars, offset, length);
+        // Keep the pair most-recent-first
+        table[other] = first;
+        table[slot] = value;
+        return value;
+    }
+
+    public String intern(String value) {
+        return value != null ? intern(value.toCharArray(), 0, value.length()) : null;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    // String.hashCode() is cached on the candidate, so a mismatch rarely reaches the char loop
+    private static boolean matches(String candidate, int hash, char[] chars, int offset, int length) {
+        if (candidate == null || candidate.length() != length || candidate.hashCode() != hash) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (candidate.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Decodes a string field through {@link #ARRIVAL_FIELDS}.
+     */
+    public static class Deserializer extends StdScalarDeserializer<String> {
+
+        public Deserializer() {
+            super(String.class);
+        }
+
+        @Override
+        public String deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.hasToken(JsonToken.VALUE_STRING)) {
+                return ARRIVAL_FIELDS.intern(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+            }
+            return StringDeserializer.instance.deserialize(p, ctxt);
+        }
+    }
+}
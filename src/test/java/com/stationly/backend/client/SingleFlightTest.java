@@ -0,0 +1,45 @@
+package com.stationly.backend.client;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    @Test
+    void testConcurrentCallersShareOneExecution() {
+        SingleFlight singleFlight = new SingleFlight();
+        AtomicInteger executions = new AtomicInteger();
+
+        List<String> results = Flux.range(0, 5)
+                .flatMap(i -> singleFlight.execute("/Line/Mode/tube", () -> Mono.fromCallable(() -> {
+                    executions.incrementAndGet();
+                    return "lines";
+                }).delayElement(Duration.ofMillis(100))))
+                .collectList()
+                .block();
+
+        assertEquals(5, results.size());
+        assertEquals(1, executions.get());
+        assertEquals(4, singleFlight.getStats().getShared());
+        assertEquals(0, singleFlight.getStats().getInFlight());
+    }
+
+    @Test
+    void testKeyIsReleasedAfterCompletion() {
+        SingleFlight singleFlight = new SingleFlight();
+        AtomicInteger executions = new AtomicInteger();
+
+        singleFlight.execute("key", () -> Mono.fromCallable(executions::incrementAndGet)).block();
+        singleFlight.execute("key", () -> Mono.fromCallable(executions::incrementAndGet)).block();
+
+        assertEquals(2, executions.get());
+        assertEquals(0, singleFlight.getStats().getShared());
+    }
+}
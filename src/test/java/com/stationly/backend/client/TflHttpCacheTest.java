@@ -0,0 +1,58 @@
+package com.stationly.backend.client;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TflHttpCacheTest {
+
+    private static final JavaType STRINGS = TypeFactory.defaultInstance()
+            .constructCollectionType(List.class, String.class);
+    private static final byte[] BODY = "[\"a\",\"b\"]".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testMinTtlAppliesOnlyWithoutFreshnessInformation() throws Exception {
+        TflHttpCache cache = new TflHttpCache(true, directory.toString(), Duration.ofHours(6));
+
+        cache.store("plain", BODY, new HttpHeaders(), STRINGS);
+        assertTrue(cache.lookup("plain").isFresh());
+
+        for (String cacheControl : List.of("no-cache", "no-store", "max-age=0", "public, s-maxage=0")) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setCacheControl(cacheControl);
+            cache.store(cacheControl, BODY, headers, STRINGS);
+            assertFalse(cache.lookup(cacheControl).isFresh(), cacheControl);
+        }
+    }
+
+    @Test
+    void testEntriesAreReloadedFromDisk() throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag("\"v1\"");
+        headers.setCacheControl("max-age=3600");
+        new TflHttpCache(true, directory.toString(), Duration.ZERO).store("lines", BODY, headers, STRINGS);
+
+        TflHttpCache restarted = new TflHttpCache(true, directory.toString(), Duration.ZERO);
+        assertNull(restarted.peek("lines"));
+        TflHttpCache.Entry entry = restarted.lookup("lines");
+
+        assertNotNull(entry);
+        assertTrue(entry.isFresh());
+        assertEquals("\"v1\"", entry.getEtag());
+        assertSame(entry, restarted.peek("lines"));
+        assertEquals(List.of("a", "b"), restarted.<List<String>>read(entry, STRINGS, true));
+        assertNull(restarted.lookup("routes"));
+    }
+}
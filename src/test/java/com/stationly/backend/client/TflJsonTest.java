@@ -0,0 +1,56 @@
+package com.stationly.backend.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.stationly.backend.model.TflLine;
+import com.stationly.backend.model.TflRouteSequence;
+import com.stationly.backend.model.TflStopPoint;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TflJsonTest {
+
+    @Test
+    void testStopPointsDecodeIgnoringUnknownFields() throws Exception {
+        String json = "[{\"$type\":\"Tfl.Api.Presentation.Entities.StopPoint\",\"naptanId\":\"490000184Z\","
+                + "\"commonName\":\"Putney Bridge Station\",\"lat\":51.46792,\"lon\":-0.20931,"
+                + "\"stopType\":\"NaptanPublicBusCoachTram\",\"indicator\":\"Stop FC\",\"stopLetter\":\"FC\","
+                + "\"additionalProperties\":[{\"key\":\"Zone\",\"value\":\"2\"}],\"lines\":[{\"id\":\"14\"}]}]";
+
+        List<TflStopPoint> stopPoints = TflJson.mapper().readValue(json, new TypeReference<>() {
+        });
+
+        assertEquals(1, stopPoints.size());
+        TflStopPoint sp = stopPoints.get(0);
+        assertEquals("490000184Z", sp.naptanId());
+        assertEquals(51.46792, sp.lat());
+        assertEquals("FC", sp.stopLetter());
+    }
+
+    @Test
+    void testStopPointWithoutCoordinatesHasNullLatLon() throws Exception {
+        TflStopPoint sp = TflJson.mapper().readValue("{\"naptanId\":\"940GZZLUPYB\"}", TflStopPoint.class);
+
+        assertNull(sp.lat());
+        assertNull(sp.lon());
+    }
+
+    @Test
+    void testRouteSequenceAndLineStatusDecode() throws Exception {
+        TflRouteSequence sequence = TflJson.mapper().readValue(
+                "{\"lineId\":\"14\",\"stopPointSequences\":[{\"stopPoint\":[]}],"
+                        + "\"orderedLineRoutes\":[{\"name\":\"A\",\"naptanIds\":[\"a\",\"b\"]}]}",
+                TflRouteSequence.class);
+        assertEquals(List.of("a", "b"), sequence.orderedLineRoutes().get(0).naptanIds());
+
+        TflLine line = TflJson.mapper().readValue(
+                "{\"id\":\"central\",\"name\":\"Central\",\"modeName\":\"tube\","
+                        + "\"lineStatuses\":[{\"statusSeverity\":10,\"statusSeverityDescription\":\"Good Service\"}]}",
+                TflLine.class);
+        assertEquals("central", line.id());
+        assertEquals("Good Service", line.lineStatuses().get(0).statusSeverityDescription());
+        assertNull(line.lineStatuses().get(0).reason());
+    }
+}
@@ -0,0 +1,67 @@
+package com.stationly.backend.client;
+
+import com.stationly.backend.model.RateLimiterStats;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static com.stationly.backend.client.TflRateLimiter.Priority.BULK;
+import static com.stationly.backend.client.TflRateLimiter.Priority.REALTIME;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TflRateLimiterTest {
+
+    @Test
+    void testRealtimeUsesReservedCapacityThatBulkCannotTouch() {
+        // 1 permit per second, burst of 3 with 2 reserved for real-time
+        TflRateLimiter limiter = new TflRateLimiter(60, 3, 2);
+
+        long start = System.nanoTime();
+        limiter.acquire(BULK);
+        limiter.acquire(REALTIME);
+        limiter.acquire(REALTIME);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMs < 500, "Reserved real-time permits should be immediate, took " + elapsedMs + "ms");
+        RateLimiterStats stats = limiter.getStats();
+        assertEquals(3, stats.getPermitsIssued());
+        assertEquals(0, stats.getLanes().get("REALTIME").getDelayed());
+    }
+
+    @Test
+    void testBulkWaitsForLeftoverBudget() {
+        // 1 permit every 100ms; bulk may only use 1 of the 3 burst tokens
+        TflRateLimiter limiter = new TflRateLimiter(600, 3, 2);
+
+        long start = System.nanoTime();
+        limiter.acquire(BULK);
+        limiter.acquire(BULK);
+        limiter.acquire(BULK);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMs >= 150, "Bulk permits should be spaced at the refill rate, took " + elapsedMs + "ms");
+        RateLimiterStats.LaneStats bulk = limiter.getStats().getLanes().get("BULK");
+        assertEquals(3, bulk.getAdmitted());
+        assertEquals(2, bulk.getDelayed());
+        assertEquals(0, bulk.getQueueDepth());
+    }
+
+    @Test
+    void testAsyncPermitsCompleteWithoutBlockingCaller() {
+        TflRateLimiter limiter = new TflRateLimiter(600, 1, 0);
+
+        limiter.acquireAsync(REALTIME).block(Duration.ofSeconds(2));
+        limiter.acquireAsync(REALTIME).block(Duration.ofSeconds(2));
+        limiter.acquireAsync(BULK).block(Duration.ofSeconds(2));
+
+        RateLimiterStats stats = limiter.getStats();
+        assertEquals(3, stats.getPermitsIssued());
+        assertEquals(2, stats.getPermitsDelayed());
+        assertEquals(0, stats.getQueueDepth());
+    }
+
+    @Test
+    void testRejectsReservationThatLeavesNoBulkCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new TflRateLimiter(300, 2, 2));
+    }
+}
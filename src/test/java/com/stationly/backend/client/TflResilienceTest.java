@@ -0,0 +1,179 @@
+package com.stationly.backend.client;
+
+import com.stationly.backend.model.ResilienceStats;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.stationly.backend.client.TflResilience.Endpoint.ARRIVALS;
+import static com.stationly.backend.client.TflResilience.Endpoint.METADATA;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TflResilienceTest {
+
+    private static TflResilience resilience(int failureThreshold, int hedgeMinSamples) {
+        return resilience(2, failureThreshold, Duration.ofMinutes(1), hedgeMinSamples);
+    }
+
+    private static TflResilience resilience(int maxRetries, int failureThreshold, Duration openDuration,
+            int hedgeMinSamples) {
+        return new TflResilience(new TflRateLimiter(6000, 50, 0), maxRetries, Duration.ofMillis(1),
+                Duration.ofMillis(5), 0.5, failureThreshold, openDuration, true, 0.5, Duration.ofMillis(20),
+                hedgeMinSamples);
+    }
+
+    private static String circuitState(TflResilience resilience, String endpoint) {
+        return resilience.getStats().getEndpoints().get(endpoint).getCircuitState();
+    }
+
+    private static WebClientResponseException status(HttpStatus status) {
+        return WebClientResponseException.create(status.value(), status.getReasonPhrase(), new HttpHeaders(),
+                new byte[0], null);
+    }
+
+    @Test
+    void testTransientFailuresAreRetried() {
+        TflResilience resilience = resilience(5, 100);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = resilience.execute(METADATA, () -> calls.incrementAndGet() < 3
+                ? Mono.<String>error(status(HttpStatus.SERVICE_UNAVAILABLE))
+                : Mono.just("lines"))
+                .block(Duration.ofSeconds(2));
+
+        assertEquals("lines", result);
+        assertEquals(3, calls.get());
+        assertEquals(2, resilience.getStats().getEndpoints().get("METADATA").getRetries());
+    }
+
+    @Test
+    void testClientErrorsAreNotRetried() {
+        TflResilience resilience = resilience(5, 100);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(WebClientResponseException.class, () -> resilience.execute(METADATA, () -> {
+            calls.incrementAndGet();
+            return Mono.error(status(HttpStatus.NOT_FOUND));
+        }).block(Duration.ofSeconds(2)));
+
+        assertEquals(1, calls.get());
+        assertEquals("CLOSED", resilience.getStats().getEndpoints().get("METADATA").getCircuitState());
+    }
+
+    @Test
+    void testCircuitOpensAfterConsecutiveFailures() {
+        TflResilience resilience = resilience(3, 100);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(WebClientResponseException.class, () -> resilience.execute(METADATA, () -> {
+            calls.incrementAndGet();
+            return Mono.error(status(HttpStatus.BAD_GATEWAY));
+        }).block(Duration.ofSeconds(2)));
+        assertThrows(TflCircuitOpenException.class,
+                () -> resilience.execute(METADATA, () -> Mono.just("ok")).block(Duration.ofSeconds(2)));
+
+        ResilienceStats.EndpointStats stats = resilience.getStats().getEndpoints().get("METADATA");
+        assertEquals(3, calls.get());
+        assertEquals("OPEN", stats.getCircuitState());
+        assertEquals(1, stats.getRejected());
+    }
+
+    @Test
+    void testSlowArrivalsRequestIsHedged() {
+        TflResilience resilience = resilience(5, 1);
+        // Prime the latency window with a fast response
+        resilience.executeMany(ARRIVALS, () -> Flux.just(1)).blockLast(Duration.ofSeconds(2));
+
+        AtomicInteger calls = new AtomicInteger();
+        List<String> result = resilience.executeMany(ARRIVALS, () -> calls.incrementAndGet() == 1
+                ? Flux.just("slow").delayElements(Duration.ofSeconds(5))
+                : Flux.just("hedged"))
+                .collectList()
+                .block(Duration.ofSeconds(2));
+
+        assertEquals(List.of("hedged"), result);
+        ResilienceStats.EndpointStats stats = resilience.getStats().getEndpoints().get("ARRIVALS");
+        assertEquals(1, stats.getHedges());
+        assertEquals(1, stats.getHedgesWon());
+    }
+
+    @Test
+    void testSuccessesResetTheFailureCount() {
+        TflResilience resilience = resilience(0, 2, Duration.ofMinutes(1), 100);
+
+        assertThrows(WebClientResponseException.class, () -> resilience.execute(METADATA,
+                () -> Mono.error(status(HttpStatus.BAD_GATEWAY))).block(Duration.ofSeconds(2)));
+        assertEquals("ok", resilience.execute(METADATA, () -> Mono.just("ok").timeout(Duration.ofSeconds(1)))
+                .block(Duration.ofSeconds(2)));
+        assertThrows(WebClientResponseException.class, () -> resilience.execute(METADATA,
+                () -> Mono.error(status(HttpStatus.BAD_GATEWAY))).block(Duration.ofSeconds(2)));
+
+        assertEquals("CLOSED", circuitState(resilience, "METADATA"));
+    }
+
+    @Test
+    void testSuccessfulTrialClosesTheCircuit() throws Exception {
+        TflResilience resilience = resilience(0, 1, Duration.ofMillis(50), 100);
+        assertThrows(WebClientResponseException.class, () -> resilience.execute(METADATA,
+                () -> Mono.error(status(HttpStatus.BAD_GATEWAY))).block(Duration.ofSeconds(2)));
+        Thread.sleep(60);
+        assertEquals("HALF_OPEN", circuitState(resilience, "METADATA"));
+
+        assertEquals("trial", resilience.execute(METADATA,
+                () -> Mono.just("trial").timeout(Duration.ofSeconds(1))).block(Duration.ofSeconds(2)));
+
+        assertEquals("CLOSED", circuitState(resilience, "METADATA"));
+        // Concurrent calls are no longer limited to a single trial
+        List<String> results = Flux.merge(
+                resilience.execute(METADATA, () -> Mono.just("a").delayElement(Duration.ofMillis(20))),
+                resilience.execute(METADATA, () -> Mono.just("b").delayElement(Duration.ofMillis(20))))
+                .collectList()
+                .block(Duration.ofSeconds(2));
+        assertEquals(2, results.size());
+    }
+
+    @Test
+    void testNothingIsHedgedWhileHalfOpen() throws Exception {
+        TflResilience resilience = resilience(0, 1, Duration.ofMillis(50), 1);
+        resilience.executeMany(ARRIVALS, () -> Flux.just(1)).blockLast(Duration.ofSeconds(2));
+        assertThrows(WebClientResponseException.class, () -> resilience.executeMany(ARRIVALS,
+                () -> Flux.error(status(HttpStatus.BAD_GATEWAY))).blockLast(Duration.ofSeconds(2)));
+        Thread.sleep(60);
+
+        List<String> result = resilience.executeMany(ARRIVALS,
+                () -> Flux.just("trial").delayElements(Duration.ofMillis(100)))
+                .collectList()
+                .block(Duration.ofSeconds(2));
+
+        assertEquals(List.of("trial"), result);
+        ResilienceStats.EndpointStats stats = resilience.getStats().getEndpoints().get("ARRIVALS");
+        assertEquals(0, stats.getHedges());
+        assertEquals(0, stats.getRejected());
+        assertEquals("CLOSED", stats.getCircuitState());
+    }
+
+    @Test
+    void testFailedHedgeDoesNotBeatThePrimary() {
+        TflResilience resilience = resilience(0, 5, Duration.ofMinutes(1), 1);
+        resilience.executeMany(ARRIVALS, () -> Flux.just("fast")).blockLast(Duration.ofSeconds(2));
+
+        AtomicInteger calls = new AtomicInteger();
+        List<String> result = resilience.executeMany(ARRIVALS, () -> calls.incrementAndGet() == 1
+                ? Flux.just("primary").delayElements(Duration.ofMillis(200))
+                : Flux.error(status(HttpStatus.TOO_MANY_REQUESTS)))
+                .collectList()
+                .block(Duration.ofSeconds(2));
+
+        assertEquals(List.of("primary"), result);
+        ResilienceStats.EndpointStats stats = resilience.getStats().getEndpoints().get("ARRIVALS");
+        assertEquals(1, stats.getHedges());
+        assertEquals(0, stats.getHedgesWon());
+    }
+}
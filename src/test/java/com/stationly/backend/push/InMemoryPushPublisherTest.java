@@ -0,0 +1,84 @@
+package com.stationly.backend.push;
+
+import com.stationly.backend.model.PushTopicStats;
+import com.stationly.backend.model.SimulatedPushStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryPushPublisherTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private InMemoryPushPublisher publisher;
+
+    @AfterEach
+    void tearDown() {
+        publisher.shutdown();
+    }
+
+    @Test
+    void testSendsOverTheQuotaAreRejectedUntilTheNextSecond() {
+        publisher = new InMemoryPushPublisher(Duration.ZERO, Duration.ZERO, 0, 3, clock::get);
+
+        List<CompletableFuture<String>> sends = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            sends.add(publisher.sendAsync("Station_A", Map.of("payload", "{}")));
+        }
+        long rejected = sends.stream().filter(send -> {
+            try {
+                send.join();
+                return false;
+            } catch (CompletionException e) {
+                PushRejectedException rejection = (PushRejectedException) e.getCause();
+                assertEquals("QUOTA_EXCEEDED", rejection.getErrorCode());
+                return true;
+            }
+        }).count();
+        assertEquals(2, rejected);
+
+        clock.addAndGet(1_000);
+        assertNotNull(publisher.sendAsync("Station_A", Map.of("payload", "{}")).join());
+        assertEquals(Map.of("QUOTA_EXCEEDED", 2L), publisher.getStats(10).getErrors());
+    }
+
+    @Test
+    void testDeliveriesAreCountedPerTopic() {
+        publisher = new InMemoryPushPublisher(Duration.ZERO, Duration.ZERO, 0, 0, clock::get);
+
+        publisher.sendAsync("Station_A", Map.of("payload", "abc")).join();
+        clock.addAndGet(250);
+        publisher.sendAsync("Station_A", Map.of("payload", "abcdef")).join();
+        publisher.sendAsync("Station_B", Map.of("payload", "x")).join();
+
+        PushTopicStats a = publisher.getTopicStats("Station_A");
+        assertEquals(2, a.getDelivered());
+        assertEquals(2 * "payload".length() + 9, a.getBytes());
+        assertEquals(250L, a.getShortestGapMs());
+        assertNull(publisher.getTopicStats("Station_B").getShortestGapMs());
+        assertNull(publisher.getTopicStats("Station_C"));
+
+        SimulatedPushStats stats = publisher.getStats(1);
+        assertEquals(3, stats.getDelivered());
+        assertEquals(2, stats.getTopics());
+        assertEquals(List.of("Station_A"), stats.getBusiestTopics().stream().map(PushTopicStats::getTopic).toList());
+    }
+
+    @Test
+    void testEveryMessageFailsAtFullErrorRate() {
+        publisher = new InMemoryPushPublisher(Duration.ZERO, Duration.ZERO, 1, 0, clock::get);
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> publisher.sendAsync("Station_A", Map.of("payload", "{}")).join());
+        assertEquals("INTERNAL", ((PushRejectedException) e.getCause()).getErrorCode());
+        assertEquals(1, publisher.getTopicStats("Station_A").getRejected());
+    }
+}
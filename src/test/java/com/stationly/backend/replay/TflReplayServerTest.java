@@ -0,0 +1,37 @@
+package com.stationly.backend.replay;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stationly.backend.client.TflResponseRecorder;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TflReplayServerTest {
+
+    @Test
+    void testScaleArrivalsCreatesSyntheticStations() throws Exception {
+        byte[] recorded = ("[{\"id\":\"1\",\"naptanId\":\"940GZZLUOXC\",\"stationName\":\"Oxford Circus\","
+                + "\"lineId\":\"central\",\"timeToStation\":120}]").getBytes(StandardCharsets.UTF_8);
+
+        JsonNode scaled = new ObjectMapper().readTree(TflReplayServer.scaleArrivals(recorded, 3));
+
+        assertEquals(3, scaled.size());
+        assertEquals("940GZZLUOXC", scaled.get(0).get("naptanId").asText());
+        assertEquals("940GZZLUOXC-1", scaled.get(1).get("naptanId").asText());
+        assertEquals("Oxford Circus-2", scaled.get(2).get("stationName").asText());
+        assertEquals("central", scaled.get(2).get("lineId").asText());
+        assertEquals(120, scaled.get(2).get("timeToStation").asInt());
+    }
+
+    @Test
+    void testRecordingNameKeepsTheQueryWithoutAppKey() {
+        assertEquals("Line/Mode/tube.json", TflResponseRecorder.recordingName("/Line/Mode/tube", "app_key=abc"));
+        assertEquals("Line/14/Route/Sequence/inbound@excludeCrowding=true.json", TflResponseRecorder
+                .recordingName("/Line/14/Route/Sequence/inbound", "excludeCrowding=true&app_key=abc"));
+        assertEquals("Mode/bus/Arrivals@count=-1.json",
+                TflResponseRecorder.recordingName("Mode/bus/Arrivals", "count=-1&app_key=abc"));
+    }
+}
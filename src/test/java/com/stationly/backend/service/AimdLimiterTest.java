@@ -0,0 +1,64 @@
+package com.stationly.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AimdLimiterTest {
+
+    @Test
+    void testWindowGrowsAdditivelyAndHalvesOnThrottling() throws Exception {
+        AimdLimiter limiter = new AimdLimiter(4, 2, 100, 0, TimeUnit.SECONDS);
+
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire();
+            limiter.onSuccess();
+        }
+        assertEquals(5, limiter.getLimit());
+
+        limiter.acquire();
+        limiter.onThrottled();
+        assertEquals(2, limiter.getLimit());
+
+        limiter.acquire();
+        limiter.onThrottled();
+        assertEquals(2, limiter.getLimit()); // never below the minimum
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void testThrottlingInsideCooldownCutsOnce() throws Exception {
+        AimdLimiter limiter = new AimdLimiter(40, 1, 100, 1, TimeUnit.MINUTES);
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire();
+        }
+        for (int i = 0; i < 10; i++) {
+            limiter.onThrottled();
+        }
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    void testAcquireWaitsForAFreeSlot() throws Exception {
+        AimdLimiter limiter = new AimdLimiter(1, 1, 1, 0, TimeUnit.SECONDS);
+        limiter.acquire();
+
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                limiter.acquire();
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        limiter.onFailure();
+        assertTrue(acquired.await(1, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,52 @@
+package com.stationly.backend.service;
+
+import com.stationly.backend.model.PredictionItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPredictionHeapTest {
+
+    @Test
+    void testKeepsEarliestInStableOrder() {
+        Random random = new Random(42);
+        List<long[]> offered = new ArrayList<>();
+        BoundedPredictionHeap heap = new BoundedPredictionHeap(10);
+
+        for (int i = 0; i < 500; i++) {
+            // Coarse ETAs so ties are common; some predictions have no ETA
+            long eta = random.nextInt(10) == 0 ? Long.MAX_VALUE : random.nextInt(60) * 1000L;
+            offered.add(new long[] { eta, i });
+            if (heap.accepts(eta)) {
+                heap.offer(eta, PredictionItem.builder().platformName(Integer.toString(i)).build());
+            }
+        }
+
+        List<String> expected = offered.stream()
+                .sorted(Comparator.comparingLong(o -> o[0]))
+                .limit(10)
+                .map(o -> Long.toString(o[1]))
+                .collect(Collectors.toList());
+        List<String> actual = heap.toSortedList().stream()
+                .map(PredictionItem::getPlatformName)
+                .collect(Collectors.toList());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void testRejectsLaterPredictionsOnceFull() {
+        BoundedPredictionHeap heap = new BoundedPredictionHeap(2);
+        heap.offer(100, PredictionItem.builder().build());
+        heap.offer(200, PredictionItem.builder().build());
+
+        assertFalse(heap.accepts(200));
+        assertFalse(heap.accepts(Long.MAX_VALUE));
+        assertTrue(heap.accepts(150));
+    }
+}
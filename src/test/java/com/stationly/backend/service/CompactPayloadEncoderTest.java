@@ -0,0 +1,78 @@
+package com.stationly.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stationly.backend.model.ArrivalPrediction;
+import com.stationly.backend.model.FcmPayload;
+import com.stationly.backend.model.PredictionItem;
+import com.stationly.backend.model.StationPredictions;
+import com.stationly.backend.service.DataTransformationService.Settings;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactPayloadEncoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CompactPayloadEncoder encoder = new CompactPayloadEncoder(objectMapper.getFactory());
+
+    @Test
+    void testPredictionsDecodeFromOffsetsAndDictionary() throws Exception {
+        StationPredictions station = PayloadSizeAccountantTest.largeStation(2, 3);
+
+        JsonNode root = objectMapper.readTree(encoder.encode(station));
+
+        assertEquals(CompactPayloadEncoder.SCHEMA_VERSION, root.get("v").asInt());
+        JsonNode dict = root.get("dict");
+        long base = root.get("base").asLong();
+        JsonNode encoded = root.get("lines").get("line-1").get("dirs").get("outbound").get(2);
+        PredictionItem item = station.getLines().get("line-1").getDirections().get("outbound").getPredictions()
+                .get(2);
+
+        assertEquals(item.getExpectedArrival() / 1000, base + encoded.get(0).asLong());
+        assertEquals(item.getDestinationNaptanId(), dict.get(encoded.get(1).asInt()).asText());
+        assertEquals(item.getDisplayName(), dict.get(encoded.get(2).asInt()).asText());
+        assertEquals(item.getPlatformName(), dict.get(encoded.get(3).asInt()).asText());
+    }
+
+    @Test
+    void testAccountedSizeNeverUnderestimates() throws Exception {
+        StationPredictions station = PayloadSizeAccountantTest.largeStation(12, 10);
+        int before = encoder.encode(station).length;
+        assertTrue(before > DataTransformationService.MAX_PAYLOAD_BYTES);
+
+        int accounted = new PayloadSizeAccountant(encoder.itemSizes(station))
+                .prune(station, before, DataTransformationService.MAX_PAYLOAD_BYTES);
+
+        int actual = encoder.encode(station).length;
+        assertTrue(actual <= accounted, actual + " > " + accounted);
+        assertTrue(actual <= DataTransformationService.MAX_PAYLOAD_BYTES);
+    }
+
+    @Test
+    void testCompactFormatKeepsMorePredictions() throws Exception {
+        List<ArrivalPrediction> arrivals = DataTransformationServiceTest.arrivals(1, 8, 10);
+        FcmPayload standard = new DataTransformationService(objectMapper, Settings.DEFAULTS)
+                .transformToPayloads(arrivals).get(0);
+        FcmPayload compact = new DataTransformationService(objectMapper, Settings.DEFAULTS.withPayloadFormat("compact"))
+                .transformToPayloads(arrivals).get(0);
+
+        // The standard format stays as it was, without a version field
+        assertFalse(objectMapper.readTree(standard.json()).has("v"));
+        assertTrue(compact.sizeBytes() <= DataTransformationService.MAX_PAYLOAD_BYTES);
+        assertTrue(predictions(objectMapper.readTree(compact.json()), null) > predictions(
+                objectMapper.readTree(standard.json()), "preds"));
+    }
+
+    private static int predictions(JsonNode root, String wrapper) {
+        int count = 0;
+        for (JsonNode line : root.get("lines")) {
+            for (JsonNode direction : line.get("dirs")) {
+                count += (wrapper != null ? direction.get(wrapper) : direction).size();
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,210 @@
+package com.stationly.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.stationly.backend.model.ArrivalPrediction;
+import com.stationly.backend.model.FcmPayload;
+import com.stationly.backend.model.MemoCacheStats;
+import com.stationly.backend.model.Station;
+import com.stationly.backend.model.StationTopics;
+import com.stationly.backend.service.DataTransformationService.Settings;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataTransformationServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    static List<ArrivalPrediction> arrivals(int stations, int linesPerStation, int perDirection) {
+        Instant base = Instant.parse("2026-01-01T12:00:00Z");
+        List<ArrivalPrediction> arrivals = new ArrayList<>();
+        for (int s = 0; s < stations; s++) {
+            for (int l = 0; l < linesPerStation; l++) {
+                for (String direction : List.of("inbound", "outbound")) {
+                    for (int p = 0; p < perDirection; p++) {
+                        ArrivalPrediction arrival = new ArrivalPrediction();
+                        arrival.setNaptanId("940GZZ" + s);
+                        arrival.setStationName("Station " + s + " Underground Station");
+                        arrival.setLineId("line-" + l);
+                        arrival.setLineName("Line " + l);
+                        arrival.setDirection(direction);
+                        arrival.setPlatformName(direction + " - Platform " + (p % 2 + 1));
+                        arrival.setDestinationNaptanId("940GZZDEST" + l);
+                        arrival.setTowards("Somewhere Far Away " + l);
+                        // Reverse order so the transform has to sort
+                        arrival.setExpectedArrival(base.plusSeconds(30L * (perDirection - p) + l).toEpochMilli());
+                        arrivals.add(arrival);
+                    }
+                }
+            }
+        }
+        return arrivals;
+    }
+
+    @Test
+    void testPayloadsAreSerializedOnceWithExactSize() throws Exception {
+        DataTransformationService service = new DataTransformationService(objectMapper, Settings.DEFAULTS);
+
+        // One line per station, so nothing has to be pruned
+        List<FcmPayload> payloads = service.transformToPayloads(arrivals(3, 1, 12));
+
+        assertEquals(3, payloads.size());
+        FcmPayload first = payloads.get(0);
+        assertEquals("Station_940GZZ0", first.topic());
+        assertEquals(first.json().getBytes(StandardCharsets.UTF_8).length, first.sizeBytes());
+        // The fixture has to stay under the limit, or pruning changes the prediction count below
+        assertTrue(first.sizeBytes() <= DataTransformationService.MAX_PAYLOAD_BYTES);
+
+        JsonNode preds = objectMapper.readTree(first.json()).get("lines").get("line-0").get("dirs")
+                .get("inbound").get("preds");
+        assertEquals(StationGroupAccumulator.MAX_PREDICTIONS_PER_DIRECTION, preds.size());
+        assertTrue(preds.get(0).get("eta").asText().compareTo(preds.get(1).get("eta").asText()) < 0);
+    }
+
+    @Test
+    void testOversizedStationIsPrunedUnderLimit() {
+        DataTransformationService service = new DataTransformationService(objectMapper, Settings.DEFAULTS);
+
+        List<FcmPayload> payloads = service.transformToPayloads(arrivals(1, 12, 10));
+
+        assertEquals(1, payloads.size());
+        assertTrue(payloads.get(0).sizeBytes() <= DataTransformationService.MAX_PAYLOAD_BYTES);
+        assertEquals(payloads.get(0).json().getBytes(StandardCharsets.UTF_8).length, payloads.get(0).sizeBytes());
+    }
+
+    @Test
+    void testParallelOutputMatchesSequential() throws Exception {
+        List<ArrivalPrediction> arrivals = arrivals(300, 3, 12);
+        DataTransformationService sequential = new DataTransformationService(objectMapper, Settings.DEFAULTS);
+        DataTransformationService parallel = new DataTransformationService(objectMapper,
+                Settings.DEFAULTS.withParallelism(4).withParallelMinStations(1));
+        try {
+            List<FcmPayload> expected = sequential.transformToPayloads(arrivals);
+            List<FcmPayload> actual = parallel.transformToPayloads(arrivals);
+
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).topic(), actual.get(i).topic());
+                assertEquals(withoutTimestamp(expected.get(i)), withoutTimestamp(actual.get(i)));
+            }
+        } finally {
+            parallel.shutdown();
+        }
+    }
+
+    @Test
+    void testTopicKeysAndDisplayNamesAreMemoized() throws Exception {
+        DataTransformationService service = new DataTransformationService(objectMapper, Settings.DEFAULTS);
+        Station warmed = Station.builder().naptanId("940GZZ0").commonName("Somewhere Far Away 0").build();
+        service.warmCaches(List.of(warmed));
+
+        List<ArrivalPrediction> arrivals = arrivals(2, 1, 3);
+        FcmPayload first = service.transformToPayloads(arrivals).get(0);
+        service.transformToPayloads(arrivals);
+
+        assertEquals("Station_940GZZ0", first.topic());
+        JsonNode pred = objectMapper.readTree(first.json()).get("lines").get("line-0").get("dirs").get("inbound")
+                .get("preds").get(0);
+        assertEquals("Somewhere Far Away 0", pred.get("displayName").asText());
+
+        MemoCacheStats topicKeys = service.getMemoStats().get("topicKeys");
+        assertEquals(2, topicKeys.getSize());
+        assertEquals(3, topicKeys.getHits()); // warmed station twice, the other on the second cycle
+        assertEquals(1, topicKeys.getMisses());
+        assertEquals(0, service.getMemoStats().get("displayNames").getMisses());
+    }
+
+    @Test
+    void testOversizedStationIsSplitIntoLineTopics() throws Exception {
+        DataTransformationService service = new DataTransformationService(objectMapper,
+                Settings.DEFAULTS.withTopicSharding("line"));
+
+        List<FcmPayload> payloads = service.transformToPayloads(arrivals(1, 12, 10));
+
+        assertEquals(12, payloads.size());
+        for (FcmPayload payload : payloads) {
+            assertTrue(payload.sizeBytes() <= DataTransformationService.MAX_PAYLOAD_BYTES);
+            JsonNode station = objectMapper.readTree(payload.json());
+            assertEquals("940GZZ0", station.get("id").asText());
+            assertEquals(1, station.get("lines").size());
+            String lineId = station.get("lines").fieldNames().next();
+            assertEquals("Station_940GZZ0_" + lineId.toUpperCase(), payload.topic());
+            // Nothing had to be pruned
+            assertEquals(StationGroupAccumulator.MAX_PREDICTIONS_PER_DIRECTION,
+                    station.get("lines").get(lineId).get("dirs").get("inbound").get("preds").size());
+        }
+
+        StationTopics topics = service.getStationTopics("940GZZ0");
+        assertEquals("line", topics.getScheme());
+        assertEquals(payloads.stream().map(FcmPayload::topic).sorted().toList(), topics.getTopics());
+
+        // A split station stays split when it would fit again
+        List<String> smaller = service.transformToPayloads(arrivals(1, 2, 3)).stream()
+                .map(FcmPayload::topic)
+                .sorted()
+                .toList();
+        assertEquals(List.of("Station_940GZZ0_LINE-0", "Station_940GZZ0_LINE-1"), smaller);
+    }
+
+    @Test
+    void testSplitIsAnnouncedOnTheStationTopic() {
+        DataTransformationService service = new DataTransformationService(objectMapper,
+                Settings.DEFAULTS.withTopicSharding("line"));
+
+        service.transformToPayloads(arrivals(1, 12, 10));
+        List<StationTopics> migrations = service.drainTopicMigrations();
+        assertEquals(1, migrations.size());
+        assertEquals("Station_940GZZ0", migrations.get(0).getStationTopic());
+        assertEquals(12, migrations.get(0).getTopics().size());
+
+        // Only a change to the topic list is announced again
+        service.transformToPayloads(arrivals(1, 12, 10));
+        assertEquals(List.of(), service.drainTopicMigrations());
+        service.retryTopicMigrations(List.of("940GZZ0"));
+        assertEquals(1, service.drainTopicMigrations().size());
+    }
+
+    @Test
+    void testConfiguredStationsAreSplitFromStartup() {
+        DataTransformationService service = new DataTransformationService(objectMapper,
+                Settings.DEFAULTS.withTopicSharding("line").withShardedStations(" 940GZZ1 ,"));
+        List<ArrivalPrediction> arrivals = arrivals(2, 2, 3);
+
+        List<String> topics = service.transformToPayloads(arrivals).stream()
+                .map(FcmPayload::topic)
+                .sorted()
+                .toList();
+
+        assertEquals(List.of("Station_940GZZ0", "Station_940GZZ1_LINE-0", "Station_940GZZ1_LINE-1"), topics);
+    }
+
+    @Test
+    void testOnlyOversizedStationsAreSplitByDirection() {
+        DataTransformationService service = new DataTransformationService(objectMapper,
+                Settings.DEFAULTS.withTopicSharding("direction"));
+        List<ArrivalPrediction> arrivals = arrivals(1, 12, 10);
+        arrivals.addAll(arrivals(2, 1, 3).subList(6, 12)); // a small station 940GZZ1
+
+        List<FcmPayload> payloads = service.transformToPayloads(arrivals);
+
+        assertEquals(25, payloads.size());
+        assertTrue(payloads.stream().anyMatch(p -> p.topic().equals("Station_940GZZ0_LINE-3_OUTBOUND")));
+        assertEquals(List.of("Station_940GZZ1"), service.getStationTopics("940GZZ1").getTopics());
+        assertEquals("station", service.getStationTopics("940GZZ1").getScheme());
+        assertEquals(24, service.getStationTopics("940GZZ0").getTopics().size());
+    }
+
+    // The two runs stamp their own lastUpdatedTime
+    private JsonNode withoutTimestamp(FcmPayload payload) throws Exception {
+        ObjectNode node = (ObjectNode) objectMapper.readTree(payload.json());
+        node.remove("lut");
+        return node;
+    }
+}
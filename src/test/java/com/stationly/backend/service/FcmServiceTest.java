@@ -0,0 +1,66 @@
+package com.stationly.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stationly.backend.model.FcmPayload;
+import com.stationly.backend.model.FcmPublishStats;
+import com.stationly.backend.push.InMemoryPushPublisher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FcmServiceTest {
+
+    private InMemoryPushPublisher publisher;
+
+    @AfterEach
+    void tearDown() {
+        publisher.shutdown();
+    }
+
+    private static List<FcmPayload> payloads(int count) {
+        List<FcmPayload> payloads = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            payloads.add(new FcmPayload("Station_" + i, "{}", 2, i, Long.MAX_VALUE));
+        }
+        return payloads;
+    }
+
+    private FcmService service(int maxAttempts) {
+        return new FcmService(new ObjectMapper(), publisher, 8, 4, 1, Duration.ofSeconds(1), maxAttempts,
+                Duration.ofMillis(1));
+    }
+
+    @Test
+    void testQuotaRejectionsAreRetriedUntilDelivered() {
+        publisher = new InMemoryPushPublisher(Duration.ofMillis(2), Duration.ZERO, 0, 30);
+        FcmService fcmService = service(50);
+
+        List<String> failed = fcmService.publishAll(payloads(60));
+
+        assertEquals(List.of(), failed);
+        assertEquals(60, publisher.getStats(0).getDelivered());
+        assertEquals(60, publisher.getStats(0).getTopics());
+        FcmPublishStats stats = fcmService.getPublishStats();
+        assertEquals("memory", stats.getPublisher());
+        assertEquals(60, stats.getSent());
+        assertTrue(stats.getRetries() > 0);
+        assertEquals(stats.getRetries(), stats.getErrors().get("QUOTA_EXCEEDED"));
+    }
+
+    @Test
+    void testTopicsOutOfAttemptsAreReturnedAsFailed() {
+        publisher = new InMemoryPushPublisher(Duration.ZERO, Duration.ZERO, 1, 0);
+        FcmService fcmService = service(2);
+
+        List<String> failed = fcmService.publishAll(payloads(3));
+
+        assertEquals(3, failed.size());
+        assertEquals(6, publisher.getStats(0).getRejected());
+        assertEquals(3, fcmService.getPublishStats().getFailed());
+    }
+}
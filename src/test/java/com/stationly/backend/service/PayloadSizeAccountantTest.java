@@ -0,0 +1,98 @@
+package com.stationly.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stationly.backend.model.DirectionPredictions;
+import com.stationly.backend.model.LineData;
+import com.stationly.backend.model.PredictionItem;
+import com.stationly.backend.model.StationPredictions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayloadSizeAccountantTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    static StationPredictions largeStation(int lines, int predictionsPerDirection) {
+        Map<String, LineData> lineMap = new LinkedHashMap<>();
+        Instant base = Instant.parse("2026-01-01T12:00:00Z");
+        for (int l = 0; l < lines; l++) {
+            Map<String, DirectionPredictions> directions = new LinkedHashMap<>();
+            for (String direction : List.of("inbound", "outbound")) {
+                List<PredictionItem> items = new ArrayList<>();
+                for (int p = 0; p < predictionsPerDirection; p++) {
+                    items.add(PredictionItem.builder()
+                            .destinationNaptanId("940GZZLU" + l + direction.charAt(0) + p)
+                            .platformName("Platform " + (p % 4 + 1))
+                            .expectedArrival(base.plusSeconds(37L * p + 11L * l).toEpochMilli())
+                            .displayName("Destination \"" + l + "\" – Café " + p)
+                            .build());
+                }
+                directions.put(direction, DirectionPredictions.builder().predictions(items).build());
+            }
+            lineMap.put("line-" + l, LineData.builder().lineId("line-" + l).lineName("Line " + l)
+                    .directions(directions).build());
+        }
+        return StationPredictions.builder()
+                .stationId("940GZZLUKSX")
+                .stationName("King's Cross St. Pancras Underground Station")
+                .lastUpdatedTime("2026-01-01T12:00:00")
+                .lines(lineMap)
+                .build();
+    }
+
+    private int size(Object value) throws Exception {
+        return objectMapper.writeValueAsBytes(value).length;
+    }
+
+    @Test
+    void testAccountedSizeMatchesSerializedSize() throws Exception {
+        StationPredictions station = largeStation(6, 10);
+        int before = size(station);
+        assertTrue(before > DataTransformationService.MAX_PAYLOAD_BYTES);
+
+        PayloadSizeAccountant accountant = new PayloadSizeAccountant(item -> {
+            try {
+                return size(item);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        int accounted = accountant.prune(station, before, DataTransformationService.MAX_PAYLOAD_BYTES);
+
+        assertEquals(size(station), accounted);
+        assertTrue(accounted <= DataTransformationService.MAX_PAYLOAD_BYTES);
+    }
+
+    @Test
+    void testDropsFurthestPredictionsFirst() throws Exception {
+        StationPredictions station = largeStation(6, 10);
+        PayloadSizeAccountant accountant = new PayloadSizeAccountant(item -> 100);
+        accountant.prune(station, 10_000, 9_000);
+
+        // Every kept prediction is earlier than every dropped one
+        Long latestKept = station.getLines().values().stream()
+                .flatMap(line -> line.getDirections().values().stream())
+                .flatMap(direction -> direction.getPredictions().stream())
+                .map(PredictionItem::getExpectedArrival)
+                .max(Long::compareTo)
+                .orElseThrow();
+        StationPredictions full = largeStation(6, 10);
+        long kept = station.getLines().values().stream()
+                .flatMap(line -> line.getDirections().values().stream())
+                .mapToLong(direction -> direction.getPredictions().size())
+                .sum();
+        long earlierInFull = full.getLines().values().stream()
+                .flatMap(line -> line.getDirections().values().stream())
+                .flatMap(direction -> direction.getPredictions().stream())
+                .filter(item -> item.getExpectedArrival().compareTo(latestKept) <= 0)
+                .count();
+        assertEquals(earlierInFull, kept);
+    }
+}
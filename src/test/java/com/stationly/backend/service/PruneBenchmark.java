@@ -0,0 +1,82 @@
+package com.stationly.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stationly.backend.model.DirectionPredictions;
+import com.stationly.backend.model.LineData;
+import com.stationly.backend.model.PredictionItem;
+import com.stationly.backend.model.StationPredictions;
+
+/**
+ * Microbenchmark for pruning oversized stations: the previous
+ * re-serialize-after-every-removal loop against {@link PayloadSizeAccountant}.
+ * Not a test; run {@link #main} from the IDE or with the test classpath.
+ */
+public class PruneBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int ITERATIONS = 200;
+
+    public static void main(String[] args) throws Exception {
+        for (int lines : new int[] { 4, 8, 16, 32 }) {
+            long naive = time(() -> naivePrune(PayloadSizeAccountantTest.largeStation(lines, 10)));
+            long accounted = time(() -> accountedPrune(PayloadSizeAccountantTest.largeStation(lines, 10)));
+            System.out.printf("%2d lines (%3d predictions): naive %8.1f µs, accountant %8.1f µs, %.1fx%n",
+                    lines, lines * 20, naive / 1000.0 / ITERATIONS, accounted / 1000.0 / ITERATIONS,
+                    (double) naive / accounted);
+        }
+    }
+
+    private static long time(ThrowingRunnable run) throws Exception {
+        for (int i = 0; i < ITERATIONS; i++) {
+            run.run(); // warm-up
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            run.run();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void accountedPrune(StationPredictions station) throws Exception {
+        int size = MAPPER.writeValueAsBytes(station).length;
+        if (size > DataTransformationService.MAX_PAYLOAD_BYTES) {
+            new PayloadSizeAccountant(item -> {
+                try {
+                    return MAPPER.writeValueAsBytes(item).length;
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }).prune(station, size, DataTransformationService.MAX_PAYLOAD_BYTES);
+        }
+    }
+
+    // The loop pruneToFitFCM used before the accountant
+    private static void naivePrune(StationPredictions station) throws Exception {
+        byte[] bytes = MAPPER.writeValueAsBytes(station);
+        while (bytes.length > DataTransformationService.MAX_PAYLOAD_BYTES) {
+            PredictionItem furthest = null;
+            DirectionPredictions target = null;
+            for (LineData line : station.getLines().values()) {
+                for (DirectionPredictions dp : line.getDirections().values()) {
+                    if (!dp.getPredictions().isEmpty()) {
+                        PredictionItem last = dp.getPredictions().get(dp.getPredictions().size() - 1);
+                        if (furthest == null || last.getExpectedArrival().compareTo(furthest.getExpectedArrival()) > 0) {
+                            furthest = last;
+                            target = dp;
+                        }
+                    }
+                }
+            }
+            if (target == null) {
+                break;
+            }
+            target.getPredictions().remove(furthest);
+            bytes = MAPPER.writeValueAsBytes(station);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
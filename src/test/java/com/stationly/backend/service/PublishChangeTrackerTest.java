@@ -0,0 +1,63 @@
+package com.stationly.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stationly.backend.model.ArrivalPrediction;
+import com.stationly.backend.model.FcmPayload;
+import com.stationly.backend.service.DataTransformationService.Settings;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PublishChangeTrackerTest {
+
+    private static FcmPayload payload(String topic, long fingerprint) {
+        return new FcmPayload(topic, "{}", 2, fingerprint, Long.MAX_VALUE);
+    }
+
+    @Test
+    void testUnchangedPayloadsAreSuppressedUntilStale() {
+        AtomicLong clock = new AtomicLong();
+        PublishChangeTracker tracker = new PublishChangeTracker(true, Duration.ofMinutes(5), clock::get);
+
+        assertEquals(2, tracker.select(List.of(payload("A", 1), payload("B", 2))).payloads().size());
+
+        clock.addAndGet(Duration.ofMinutes(1).toMillis());
+        PublishChangeTracker.Selection second = tracker.select(List.of(payload("A", 1), payload("B", 3)));
+        assertEquals(List.of("B"), second.payloads().stream().map(FcmPayload::topic).toList());
+        assertEquals(1, second.suppressed());
+
+        // A was last sent 5 minutes ago, so it goes out again as a heartbeat
+        clock.addAndGet(Duration.ofMinutes(4).toMillis());
+        PublishChangeTracker.Selection third = tracker.select(List.of(payload("A", 1), payload("B", 3)));
+        assertEquals(List.of("A"), third.payloads().stream().map(FcmPayload::topic).toList());
+    }
+
+    @Test
+    void testForgottenTopicsAreSentAgain() {
+        PublishChangeTracker tracker = new PublishChangeTracker(true, Duration.ofMinutes(5), () -> 0L);
+        tracker.select(List.of(payload("A", 1)));
+
+        tracker.forget(List.of("A"));
+
+        assertEquals(1, tracker.select(List.of(payload("A", 1))).payloads().size());
+    }
+
+    @Test
+    void testFingerprintIgnoresLastUpdatedTime() throws Exception {
+        DataTransformationService service = new DataTransformationService(new ObjectMapper(), Settings.DEFAULTS);
+        List<ArrivalPrediction> arrivals = DataTransformationServiceTest.arrivals(2, 3, 4);
+
+        List<FcmPayload> first = service.transformToPayloads(arrivals);
+        Thread.sleep(5);
+        List<FcmPayload> second = service.transformToPayloads(arrivals);
+        assertEquals(first.get(0).fingerprint(), second.get(0).fingerprint());
+        assertNotEquals(first.get(0).fingerprint(), first.get(1).fingerprint());
+
+        arrivals.get(0).setPlatformName("Platform 9");
+        assertNotEquals(first.get(0).fingerprint(), service.transformToPayloads(arrivals).get(0).fingerprint());
+    }
+}
@@ -0,0 +1,56 @@
+package com.stationly.backend.service;
+
+import com.stationly.backend.model.ArrivalPrediction;
+import com.stationly.backend.model.PredictionItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StationGroupAccumulatorTest {
+
+    private static ArrivalPrediction row(String id, String platform, long eta, Long timestamp) {
+        ArrivalPrediction arrival = new ArrivalPrediction();
+        arrival.setId(id);
+        arrival.setNaptanId("940GZZLUKSX");
+        arrival.setLineId("victoria");
+        arrival.setDirection("inbound");
+        arrival.setPlatformName(platform);
+        arrival.setExpectedArrival(eta);
+        arrival.setTimestamp(timestamp);
+        return arrival;
+    }
+
+    private static List<String> platforms(StationGroupAccumulator accumulator) {
+        return accumulator.getStations().get("940GZZLUKSX").lines.get("victoria").directions.get("inbound")
+                .toSortedList().stream().map(PredictionItem::getPlatformName).toList();
+    }
+
+    @Test
+    void testFreshestRowPerVehicleIsKept() {
+        StationGroupAccumulator accumulator = new StationGroupAccumulator(
+                arrival -> PredictionItem.builder().platformName(arrival.getPlatformName()).build());
+
+        accumulator.add(row("1", "stale", 60_000, 1_000L));
+        accumulator.add(row("2", "other", 90_000, 1_000L));
+        accumulator.add(row("1", "fresh", 120_000, 2_000L));
+        accumulator.add(row("1", "older", 30_000, 500L));
+
+        assertEquals(List.of("other", "fresh"), platforms(accumulator));
+        assertEquals(2, accumulator.getDuplicates());
+        assertEquals(4, accumulator.getArrivalsReceived());
+    }
+
+    @Test
+    void testRowsWithoutIdAreNotReconciled() {
+        StationGroupAccumulator accumulator = new StationGroupAccumulator(
+                arrival -> PredictionItem.builder().platformName(arrival.getPlatformName()).build());
+
+        accumulator.add(row(null, "a", 60_000, null));
+        accumulator.add(row(null, "b", 60_000, null));
+
+        assertEquals(List.of("a", "b"), platforms(accumulator));
+        assertEquals(0, accumulator.getDuplicates());
+    }
+}
@@ -1,8 +1,14 @@
 package com.stationly.backend.service;
 
 import com.stationly.backend.client.TflApiClient;
+import com.stationly.backend.client.TflHttpCache;
 import com.stationly.backend.client.TflRateLimiter;
+import com.stationly.backend.client.TflResilience;
+import com.stationly.backend.client.TflResponseRecorder;
 import com.stationly.backend.model.Station;
+import com.stationly.backend.model.TflLine;
+import com.stationly.backend.model.TflRouteSequence;
+import com.stationly.backend.model.TflStopPoint;
 import com.stationly.backend.repository.DataRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,7 +16,9 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -21,34 +29,30 @@ class StationServiceTest {
 
     // Manual Stub because Mockito fails with Java 25/ByteBuddy
     static class StubTflApiClient extends TflApiClient {
+        List<TflStopPoint> stopPoints = Collections.singletonList(new TflStopPoint("490000184Z",
+                "Putney Bridge Station", 51.46792, -0.20931, "NaptanPublicBusCoachTram", "Stop FC", "FC"));
+        int routeSequenceCalls;
+
         public StubTflApiClient() {
-            super(WebClient.builder(), new TflRateLimiter());
+            super(WebClient.builder(), new TflHttpCache(false, null, Duration.ZERO),
+                    new TflResilience(new TflRateLimiter()), new TflResponseRecorder(false, "tfl-recordings"),
+                    "https://api.tfl.gov.uk");
         }
 
         @Override
-        public List<Map<String, Object>> getLinesByMode(String mode) {
-            Map<String, Object> line39 = new HashMap<>();
-            line39.put("id", "39");
-            line39.put("name", "39");
-            return Collections.singletonList(line39);
+        public List<TflLine> getLinesByMode(String mode) {
+            return Collections.singletonList(new TflLine("39", "39", "bus", null));
         }
 
         @Override
-        public List<Map<String, Object>> getStopPointsByLine(String lineId) {
-            Map<String, Object> stop1 = new HashMap<>();
-            stop1.put("naptanId", "490000184Z");
-            stop1.put("commonName", "Putney Bridge Station");
-            stop1.put("lat", 51.46792);
-            stop1.put("lon", -0.20931);
-            stop1.put("stopType", "NaptanPublicBusCoachTram");
-            stop1.put("indicator", "Stop FC");
-            stop1.put("stopLetter", "FC");
-            return Collections.singletonList(stop1);
+        public Mono<List<TflStopPoint>> fetchStopPointsByLine(String lineId) {
+            return Mono.just(stopPoints);
         }
 
         @Override
-        public Map<String, Object> getRouteSequence(String lineId, String direction) {
-            return null;
+        public Mono<TflRouteSequence> fetchRouteSequence(String lineId, String direction) {
+            routeSequenceCalls++;
+            return Mono.empty();
         }
     }
 
@@ -93,4 +97,15 @@ class StationServiceTest {
         assertEquals("FC", s.getStopLetter());
         assertTrue(s.getModes().containsKey("bus"));
     }
+
+    @Test
+    void testLineWithoutStopPointsSkipsRouteSequences() {
+        when(stationRepository.findAll()).thenReturn(Collections.emptyList());
+        tflApiClient.stopPoints = Collections.emptyList();
+
+        stationService.syncStationsByMode("bus");
+
+        assertEquals(0, tflApiClient.routeSequenceCalls);
+        verify(stationRepository, never()).saveAll(any());
+    }
 }
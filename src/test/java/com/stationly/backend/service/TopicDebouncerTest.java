@@ -0,0 +1,83 @@
+package com.stationly.backend.service;
+
+import com.stationly.backend.model.FcmPayload;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopicDebouncerTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private final TopicDebouncer debouncer = new TopicDebouncer(Duration.ofSeconds(30), Duration.ofMinutes(2),
+            clock::get);
+
+    private FcmPayload payload(String json, Duration firstEta) {
+        return payload("Station_A", json, firstEta);
+    }
+
+    private FcmPayload payload(String topic, String json, Duration firstEta) {
+        return new FcmPayload(topic, json, json.length(), json.hashCode(), clock.get() + firstEta.toMillis());
+    }
+
+    private List<String> sent(TopicDebouncer.Batch batch) {
+        return batch.payloads().stream().map(FcmPayload::json).toList();
+    }
+
+    @Test
+    void testNewestPayloadIsSentOnceTheWindowCloses() {
+        assertEquals(List.of("v1"), sent(debouncer.offer("tube", List.of(payload("v1", Duration.ofMinutes(5))))));
+
+        clock.addAndGet(10_000);
+        TopicDebouncer.Batch held = debouncer.offer("tube", List.of(payload("v2", Duration.ofMinutes(5))));
+        assertEquals(List.of(), sent(held));
+        assertEquals(1, held.held());
+
+        clock.addAndGet(10_000);
+        debouncer.offer("tube", List.of(payload("v3", Duration.ofMinutes(5))));
+
+        // Nothing changed this cycle, but the held v3 is now due
+        clock.addAndGet(10_000);
+        assertEquals(List.of("v3"), sent(debouncer.offer("tube", List.of())));
+        assertEquals(List.of(), sent(debouncer.offer("tube", List.of())));
+    }
+
+    @Test
+    void testImminentArrivalBypassesTheWindow() {
+        debouncer.offer("tube", List.of(payload("v1", Duration.ofMinutes(5))));
+
+        clock.addAndGet(5_000);
+        assertEquals(List.of("v2"), sent(debouncer.offer("tube", List.of(payload("v2", Duration.ofSeconds(90))))));
+
+        // Still imminent, so no longer a change worth bypassing for
+        clock.addAndGet(5_000);
+        assertEquals(List.of(), sent(debouncer.offer("tube", List.of(payload("v3", Duration.ofSeconds(60))))));
+    }
+
+    @Test
+    void testFailedTopicsAreNotHeld() {
+        debouncer.offer("tube", List.of(payload("v1", Duration.ofMinutes(5))));
+        debouncer.forget(List.of("Station_A"));
+
+        clock.addAndGet(1_000);
+        assertEquals(List.of("v2"), sent(debouncer.offer("tube", List.of(payload("v2", Duration.ofMinutes(5))))));
+    }
+
+    @Test
+    void testHeldPayloadsAreReleasedByTheirOwnMode() {
+        debouncer.offer("tube", List.of(payload("v1", Duration.ofMinutes(5))));
+        debouncer.offer("bus", List.of(payload("Station_B", "b1", Duration.ofMinutes(5))));
+
+        clock.addAndGet(10_000);
+        debouncer.offer("tube", List.of(payload("v2", Duration.ofMinutes(5))));
+
+        // The held tube payload is due, but a bus cycle leaves it to the next tube cycle
+        clock.addAndGet(30_000);
+        assertEquals(List.of("b2"), sent(debouncer.offer("bus", List.of(payload("Station_B", "b2",
+                Duration.ofMinutes(5))))));
+        assertEquals(List.of("v2"), sent(debouncer.offer("tube", List.of())));
+    }
+}
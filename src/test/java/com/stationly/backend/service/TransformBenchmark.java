@@ -0,0 +1,50 @@
+package com.stationly.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stationly.backend.model.ArrivalPrediction;
+import com.stationly.backend.service.DataTransformationService.Settings;
+
+import java.util.List;
+
+/**
+ * Compares the sequential and parallel station transform across cycle sizes,
+ * from a small DLR-like cycle up to a bus-sized one. Not a test; run
+ * {@link #main} from the IDE or with the test classpath, optionally passing the
+ * parallelism to use.
+ */
+public class TransformBenchmark {
+
+    private static final int ITERATIONS = 20;
+
+    public static void main(String[] args) {
+        int parallelism = args.length > 0 ? Integer.parseInt(args[0])
+                : Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        ObjectMapper objectMapper = new ObjectMapper();
+        DataTransformationService sequential = new DataTransformationService(objectMapper, Settings.DEFAULTS);
+        DataTransformationService parallel = new DataTransformationService(objectMapper,
+                Settings.DEFAULTS.withParallelism(parallelism).withParallelMinStations(1));
+        try {
+            for (int stations : new int[] { 50, 400, 2_000, 8_000 }) {
+                List<ArrivalPrediction> arrivals = DataTransformationServiceTest.arrivals(stations, 2, 6);
+                long sequentialNanos = time(sequential, arrivals);
+                long parallelNanos = time(parallel, arrivals);
+                System.out.printf("%5d stations (%7d arrivals): sequential %8.2f ms, parallel(%d) %8.2f ms, %.1fx%n",
+                        stations, arrivals.size(), sequentialNanos / 1e6 / ITERATIONS, parallelism,
+                        parallelNanos / 1e6 / ITERATIONS, (double) sequentialNanos / parallelNanos);
+            }
+        } finally {
+            parallel.shutdown();
+        }
+    }
+
+    private static long time(DataTransformationService service, List<ArrivalPrediction> arrivals) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            service.transformToPayloads(arrivals); // warm-up
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            service.transformToPayloads(arrivals);
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,105 @@
+package com.stationly.backend.util;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.stationly.backend.model.ArrivalPrediction;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+
+/**
+ * Decodes a bus-sized arrivals response with and without the interned arrival
+ * fields and reports bytes allocated per decode and heap retained by the
+ * decoded rows. Not a test; run {@link #main} from the IDE or with the test
+ * classpath, optionally passing the number of rows.
+ */
+public class InternBenchmark {
+
+    private static final int ITERATIONS = 10;
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 40_000;
+        ObjectMapper mapper = new ObjectMapper();
+        byte[] body = arrivalsJson(mapper, rows);
+        System.out.printf("%d rows, %d KB of JSON%n", rows, body.length / 1024);
+
+        report("plain   ", mapper, body, PlainArrival[].class);
+        report("interned", mapper, body, ArrivalPrediction[].class);
+    }
+
+    private static void report(String label, ObjectMapper mapper, byte[] body, Class<?> type) throws Exception {
+        for (int i = 0; i < ITERATIONS; i++) {
+            mapper.readValue(body, type); // warm-up
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            mapper.readValue(body, type);
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = (threads.getCurrentThreadAllocatedBytes() - allocatedBefore) / ITERATIONS;
+
+        long heapBefore = usedHeap();
+        Object decoded = mapper.readValue(body, type);
+        long retained = usedHeap() - heapBefore;
+        System.out.printf("%s: %7.2f ms/decode, %6d KB allocated/decode, %6d KB retained (%d rows)%n", label,
+                nanos / 1e6 / ITERATIONS, allocated / 1024, retained / 1024, ((Object[]) decoded).length);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // Roughly the shape of a bus cycle: many stops, few lines, repeated names
+    private static byte[] arrivalsJson(ObjectMapper mapper, int rows) throws Exception {
+        ArrayNode array = mapper.createArrayNode();
+        Instant base = Instant.parse("2026-01-01T12:00:00Z");
+        for (int i = 0; i < rows; i++) {
+            int stop = i % 4_000;
+            int line = i % 120;
+            ObjectNode row = array.addObject();
+            row.put("id", Integer.toString(100_000 + i));
+            row.put("naptanId", "490G" + stop);
+            row.put("stationName", "Bus Stop Road " + stop);
+            row.put("lineId", Integer.toString(line));
+            row.put("lineName", Integer.toString(line));
+            row.put("platformName", "Stop " + (char) ('A' + stop % 26));
+            row.put("direction", i % 2 == 0 ? "inbound" : "outbound");
+            row.put("destinationName", "Terminus " + line + (i % 2 == 0 ? "A" : "B"));
+            row.put("towards", "Town Centre " + line);
+            row.put("modeName", "bus");
+            row.put("expectedArrival", base.plusSeconds(i % 1_800).toString());
+            row.put("timestamp", base.toString());
+        }
+        return mapper.writeValueAsBytes(array);
+    }
+
+    // ArrivalPrediction without the interning
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class PlainArrival {
+        public String id;
+        public String naptanId;
+        public String stationName;
+        public String lineId;
+        public String lineName;
+        public String platformName;
+        public String direction;
+        public String destinationName;
+        public String modeName;
+        public String towards;
+        @JsonDeserialize(using = IsoTimestamps.EpochMillisDeserializer.class)
+        public Long expectedArrival;
+        @JsonDeserialize(using = IsoTimestamps.EpochMillisDeserializer.class)
+        public Long timestamp;
+    }
+}
@@ -0,0 +1,80 @@
+package com.stationly.backend.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stationly.backend.model.ArrivalPrediction;
+import com.stationly.backend.model.PredictionItem;
+import org.junit.jupiter.api.Test;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IsoTimestampsTest {
+
+    @Test
+    void testParsesTflShapes() {
+        long expected = Instant.parse("2026-01-01T12:00:00Z").toEpochMilli();
+
+        assertEquals(expected, IsoTimestamps.parseEpochMillis("2026-01-01T12:00:00Z"));
+        assertEquals(expected + 123, IsoTimestamps.parseEpochMillis("2026-01-01T12:00:00.1234567Z"));
+        assertEquals(expected + 500, IsoTimestamps.parseEpochMillis("2026-01-01T12:00:00.5Z"));
+        assertEquals(expected, IsoTimestamps.parseEpochMillis("2026-01-01T13:00:00+01:00"));
+        assertEquals(expected, IsoTimestamps.parseEpochMillis("2026-01-01T12:00:00"));
+        // Zone ids take the java.time fallback
+        assertEquals(expected, IsoTimestamps.parseEpochMillis("2026-01-01T12:00:00Z[Europe/London]"));
+        assertThrows(DateTimeException.class, () -> IsoTimestamps.parseEpochMillis("2026-02-30T12:00:00Z"));
+    }
+
+    @Test
+    void testMatchesJavaTime() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long millis = (long) (random.nextDouble() * 4_102_444_800_000L);
+            if (random.nextBoolean()) {
+                millis = millis / 1000 * 1000;
+            }
+            Instant instant = Instant.ofEpochMilli(millis);
+            String formatted = IsoTimestamps.formatInstant(millis);
+
+            assertEquals(DateTimeFormatter.ISO_INSTANT.format(instant), formatted);
+            assertEquals(millis, IsoTimestamps.parseEpochMillis(formatted));
+            assertEquals(millis, IsoTimestamps.parseEpochMillis(
+                    instant.atOffset(ZoneOffset.ofHours(random.nextInt(25) - 12)).toString()));
+        }
+    }
+
+    @Test
+    void testFractionsMatchIsoInstant() {
+        for (String text : new String[] { "2026-01-01T12:00:00.000Z", "2026-01-01T12:00:00.5Z",
+                "2026-01-01T12:00:00.123456789Z", "2026-01-01T12:00:00.000001Z" }) {
+            Instant instant = Instant.parse(text);
+            String expected = DateTimeFormatter.ISO_INSTANT.format(instant);
+
+            assertEquals(expected, IsoTimestamps.formatInstant(instant), text);
+            assertEquals(instant, Instant.parse(IsoTimestamps.formatInstant(instant)), text);
+            // Epoch millis keep the first three fraction digits
+            long millis = IsoTimestamps.parseEpochMillis(text);
+            assertEquals(DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochMilli(millis)),
+                    IsoTimestamps.formatInstant(millis), text);
+            assertEquals(millis, IsoTimestamps.parseEpochMillis(IsoTimestamps.formatInstant(millis)), text);
+        }
+        assertEquals("2026-01-01T12:00:00Z", IsoTimestamps.formatInstant(Instant.parse("2026-01-01T12:00:00.000Z")));
+        assertEquals("2026-01-01T12:00:00.500Z", IsoTimestamps.formatInstant(Instant.parse("2026-01-01T12:00:00.5Z")));
+        assertEquals("2026-01-01T12:00:00.123456789Z",
+                IsoTimestamps.formatInstant(Instant.parse("2026-01-01T12:00:00.123456789Z")));
+    }
+
+    @Test
+    void testJsonRoundTrip() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        ArrivalPrediction arrival = mapper.readValue("{\"expectedArrival\":\"2026-01-01T12:00:30Z\"}",
+                ArrivalPrediction.class);
+        PredictionItem item = PredictionItem.builder().expectedArrival(arrival.getExpectedArrival()).build();
+
+        assertEquals("2026-01-01T12:00:30Z", mapper.readTree(mapper.writeValueAsString(item)).get("eta").asText());
+    }
+}
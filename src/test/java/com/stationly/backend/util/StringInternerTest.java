@@ -0,0 +1,47 @@
+package com.stationly.backend.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stationly.backend.model.ArrivalPrediction;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringInternerTest {
+
+    @Test
+    void testEqualValuesShareOneInstance() {
+        StringInterner interner = new StringInterner(64, 32);
+        char[] buffer = "xxVictoriaxx".toCharArray();
+
+        String first = interner.intern(buffer, 2, 8);
+        String second = interner.intern(new String("Victoria"));
+
+        assertEquals("Victoria", first);
+        assertSame(first, second);
+        assertEquals(1, interner.getHits());
+        assertEquals(1, interner.getMisses());
+    }
+
+    @Test
+    void testTableStaysBounded() {
+        StringInterner interner = new StringInterner(16, 32);
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals("value-" + i, interner.intern("value-" + i));
+        }
+        String longValue = "x".repeat(40);
+        assertNotSame(interner.intern(longValue), interner.intern(longValue));
+    }
+
+    @Test
+    void testArrivalFieldsAreInternedOnDecode() throws Exception {
+        String json = "[{\"lineId\":\"victoria\",\"platformName\":\"Northbound - Platform 5\",\"id\":\"1\"},"
+                + "{\"lineId\":\"victoria\",\"platformName\":\"Northbound - Platform 5\",\"id\":\"2\"}]";
+        List<ArrivalPrediction> arrivals = List.of(new ObjectMapper().readValue(json, ArrivalPrediction[].class));
+
+        assertSame(arrivals.get(0).getLineId(), arrivals.get(1).getLineId());
+        assertSame(arrivals.get(0).getPlatformName(), arrivals.get(1).getPlatformName());
+        assertNotSame(arrivals.get(0).getId(), arrivals.get(1).getId());
+    }
+}